@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Compare la recherche /rides entre les deux modes de Tomcat:
+#   - covoiturage-app    (port 8082): threads classiques
+#   - covoiturage-app-vt (port 8083): threads virtuels
+#
+# Prérequis: docker compose --profile vthreads up -d, et quelques trajets en base
+# pour la recherche utilisée (par défaut paris -> lyon à la date donnée).
+#
+# Usage: docker/loadtest/compare-thread-modes.sh [clients] [durée_s] [départ] [arrivée] [date]
+set -euo pipefail
+
+CLIENTS="${1:-200}"
+DURATION="${2:-60}"
+FROM="${3:-paris}"
+TO="${4:-lyon}"
+DATE="${5:-$(date -d '+7 days' +%F)}"
+
+cd "$(dirname "$0")/../.."
+
+# compile le générateur de charge (src/test/java) et récupère le classpath de test
+mvn -B -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-cp.txt
+CP="target/test-classes:target/classes:$(cat target/test-cp.txt)"
+
+run_mode() {
+  local container="$1" port="$2"
+  echo "=== ${container} (port ${port}) ==="
+
+  # redémarrage pour partir des mêmes compteurs (pic de threads, heap)
+  docker restart "${container}" > /dev/null
+  until curl -fs -o /dev/null "http://localhost:${port}/covoiturage/home"; do sleep 1; done
+
+  java -cp "${CP}" com.covoit.covoiturage.loadtest.RidesSearchLoad \
+      "http://localhost:${port}/covoiturage" "${CLIENTS}" "${DURATION}" "${FROM}" "${TO}" "${DATE}"
+
+  # threads JVM (actuels et pic) et occupation du heap après la charge
+  docker exec "${container}" jcmd 1 PerfCounter.print \
+      | grep -E 'java.threads.(live|livePeak)='
+  docker exec "${container}" jcmd 1 GC.heap_info | head -n 3
+  echo
+}
+
+run_mode covoiturage-app 8082
+run_mode covoiturage-app-vt 8083
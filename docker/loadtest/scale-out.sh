@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# Mesure le passage à l'échelle horizontal sur /rides: même charge envoyée à nginx
+# (port 8090) devant 1, 2 puis 4 conteneurs app-node (un coeur chacun).
+#
+# Prérequis: image covoiturage-aap construite, et quelques trajets en base pour la
+# recherche utilisée (par défaut paris -> lyon à la date donnée). Il faut au moins
+# 5 coeurs libres sur la machine pour que 4 noeuds ne se gênent pas.
+#
+# Usage: docker/loadtest/scale-out.sh [clients] [durée_s] [départ] [arrivée] [date] [noeuds...]
+set -euo pipefail
+
+CLIENTS="${1:-200}"
+DURATION="${2:-60}"
+FROM="${3:-paris}"
+TO="${4:-lyon}"
+DATE="${5:-$(date -d '+7 days' +%F)}"
+shift $(( $# < 5 ? $# : 5 ))
+NODES=("$@")
+if [ "${#NODES[@]}" -eq 0 ]; then
+  NODES=(1 2 4)
+fi
+
+cd "$(dirname "$0")/../.."
+
+mvn -B -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-cp.txt
+CP="target/test-classes:target/classes:$(cat target/test-cp.txt)"
+
+declare -A RATES
+
+for n in "${NODES[@]}"; do
+  echo "=== ${n} noeud(s) ==="
+  docker compose --profile scale up -d --scale app-node="${n}" --force-recreate app-node lb > /dev/null
+
+  # tous les noeuds démarrés, puis nginx relancé pour résoudre leurs adresses
+  until [ "$(docker compose --profile scale ps -q --status running app-node | wc -l)" -eq "${n}" ]; do sleep 1; done
+  docker compose --profile scale restart lb > /dev/null
+  for _ in $(seq 1 $(( n * 5 ))); do
+    until curl -fs -o /dev/null "http://localhost:8090/covoiturage/home"; do sleep 1; done
+  done
+
+  out=$(java -cp "${CP}" com.covoit.covoiturage.loadtest.RidesSearchLoad \
+      "http://localhost:8090/covoiturage" "${CLIENTS}" "${DURATION}" "${FROM}" "${TO}" "${DATE}")
+  echo "${out}"
+  RATES[$n]=$(echo "${out}" | sed -n 's/.* \([0-9.]*\) req\/s.*/\1/p')
+  echo
+done
+
+echo "=== débit /rides par nombre de noeuds ==="
+base="${RATES[${NODES[0]}]}"
+for n in "${NODES[@]}"; do
+  awk -v n="${n}" -v r="${RATES[$n]}" -v b="${base}" -v n0="${NODES[0]}" \
+      'BEGIN { printf "%d noeud(s): %8.1f req/s  (x%.2f, idéal x%.2f)\n", n, r, r / b, n / n0 }'
+done
@@ -0,0 +1,22 @@
+#!/bin/sh
+# Options de démarrage de Tomcat (lu automatiquement par catalina.sh).
+#
+# TOMCAT_VIRTUAL_THREADS=true : les requêtes HTTP sont traitées sur des threads
+# virtuels (attribut useVirtualThreads du connecteur 8080, voir le Dockerfile).
+# jdk.tracePinnedThreads affiche une pile dans les logs si un thread virtuel
+# reste bloqué sur son thread porteur (bloc synchronized pendant une attente).
+
+if [ "$TOMCAT_VIRTUAL_THREADS" = "true" ]; then
+  CATALINA_OPTS="$CATALINA_OPTS -Dcovoit.tomcat.virtualThreads=true -Djdk.tracePinnedThreads=short"
+fi
+
+# TOMCAT_INTERNAL_PROXIES : expression régulière des adresses du répartiteur de charge
+# (ex. 172\.28\.0\.10 pour nginx dans docker-compose.yml). Seules les requêtes venant
+# de ces adresses peuvent fixer l'adresse du client par X-Forwarded-For (RemoteIpValve).
+# Entre apostrophes: catalina.sh relit CATALINA_OPTS avec eval, les \ doivent rester.
+
+if [ -n "$TOMCAT_INTERNAL_PROXIES" ]; then
+  CATALINA_OPTS="$CATALINA_OPTS -Dcovoit.tomcat.internalProxies='$TOMCAT_INTERNAL_PROXIES'"
+fi
+
+export CATALINA_OPTS
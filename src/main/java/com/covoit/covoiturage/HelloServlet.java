@@ -1,12 +1,12 @@
 package com.covoit.covoiturage;
 
 import com.covoit.covoiturage.model.User;
+import com.covoit.covoiturage.web.filter.CurrentUser;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 
@@ -22,15 +22,8 @@ public class HelloServlet extends HttpServlet {
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
-        // On récupère l'utilisateur en session (peut être null si non connecté)
-        HttpSession session = req.getSession(false);
-        User user = null;
-        if (session != null) {
-            Object obj = session.getAttribute("user");
-            if (obj instanceof User) {
-                user = (User) obj;
-            }
-        }
+        // On récupère l'utilisateur connecté (peut être null si non connecté)
+        User user = CurrentUser.user(req);
 
         // On peut poser l'utilisateur en attribut requête si on veut
         req.setAttribute("user", user);
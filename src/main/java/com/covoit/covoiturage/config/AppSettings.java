@@ -0,0 +1,54 @@
+package com.covoit.covoiturage.config;
+
+/*
+ * Lecture des paramètres de configuration de l'application.
+ * Pour une clé comme "covoit.qr.cache.size", on regarde dans l'ordre:
+ *  - la propriété système -Dcovoit.qr.cache.size=...
+ *  - la variable d'environnement COVOIT_QR_CACHE_SIZE (pratique en Docker)
+ *  - sinon la valeur par défaut fournie par l'appelant
+ * */
+public final class AppSettings {
+
+    private AppSettings() {
+        // Constructeur privé
+    }
+
+    /**
+     * Retourne la valeur brute du paramètre, ou defaultValue s'il n'est pas défini.
+     */
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            value = System.getenv(envName(key));
+        }
+        return (value == null || value.isBlank()) ? defaultValue : value.trim();
+    }
+
+    /**
+     * Paramètre entier; une valeur non numérique est ignorée (valeur par défaut).
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Paramètre booléen ("true" / "false").
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return (value == null) ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    // "covoit.qr.cache.size" -> "COVOIT_QR_CACHE_SIZE"
+    static String envName(String key) {
+        return key.toUpperCase().replace('.', '_');
+    }
+}
@@ -1,11 +1,27 @@
 package com.covoit.covoiturage.config;
 
+import com.covoit.covoiturage.dao.codec.BookingCodec;
+import com.covoit.covoiturage.dao.codec.RideCodec;
+import com.covoit.covoiturage.dao.codec.UserCodec;
 import com.mongodb.ConnectionString;
 
 import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.connection.ClusterType;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /*
  * connexion à MongoDB
@@ -18,8 +34,59 @@ import com.mongodb.client.MongoDatabase;
 
 public class MongoManager {
 
+    private static final Logger LOG = Logger.getLogger(MongoManager.class.getName());
+
+    // Un index à créer: collection, clés et options (le nom sert dans les logs)
+    private record IndexSpec(String collection, Bson keys, IndexOptions options) { }
+
+    // Un index désigné par son nom (suppression)
+    private record IndexName(String collection, String name) { }
+
+    /*
+     * Tous les index dont les DAO ont besoin:
+     *  - rides: recherche par villes + date, trajets d'un conducteur,
+     *    prochains trajets (tri et curseur sur departureDateTime + _id)
+     *  - bookings: réservations d'un trajet (et par statut), réservations d'un passager;
+     *    "seats" est dans l'index pour que les sommes de places soient couvertes
+     *  - users: connexion par email (unique)
+     * */
+    private static final List<IndexSpec> INDEXES = List.of(
+            new IndexSpec("rides",
+                    Indexes.ascending("pathCities", "departureDateTime"),
+                    new IndexOptions().name("pathCities_departureDateTime")),
+            new IndexSpec("rides",
+                    Indexes.ascending("driverId"),
+                    new IndexOptions().name("driverId")),
+            new IndexSpec("rides",
+                    Indexes.ascending("departureDateTime", "_id"),
+                    new IndexOptions().name("departureDateTime__id")),
+            new IndexSpec("bookings",
+                    Indexes.ascending("rideId", "status", "seats"),
+                    new IndexOptions().name("rideId_status_seats")),
+            new IndexSpec("bookings",
+                    Indexes.compoundIndex(Indexes.ascending("passengerId"), Indexes.descending("createdAt")),
+                    new IndexOptions().name("passengerId_createdAt")),
+            new IndexSpec("users",
+                    Indexes.ascending("email"),
+                    new IndexOptions().name("email_unique").unique(true)));
+
+    /*
+     * Anciens index remplacés par un index de INDEXES qui commence par les mêmes clés
+     * (departureDateTime -> departureDateTime__id, rideId_status -> rideId_status_seats):
+     * inutiles pour les requêtes, ils coûtent à chaque écriture. Supprimés au démarrage.
+     * */
+    private static final List<IndexName> SUPERSEDED = List.of(
+            new IndexName("rides", "departureDateTime"),
+            new IndexName("bookings", "rideId_status"));
+
+    // dropIndex: index ou collection absents (rien à supprimer)
+    private static final int INDEX_NOT_FOUND = 27;
+    private static final int NAMESPACE_NOT_FOUND = 26;
+
     private static MongoClient client;
     private static MongoDatabase database;
+    // transactions possibles (voir supportsTransactions), null tant que le type de serveur est inconnu
+    private static volatile Boolean transactions;
 
     static {
         // On essaie d'abord de lire l'URL dans la variable d'environnement MONGO_URI
@@ -33,8 +100,14 @@ public class MongoManager {
         //  Création de la ConnectionString à partir de l'URI
         ConnectionString cs = new ConnectionString(uri);
 
+        // Codecs des objets métier (User, Ride, Booking), en plus des codecs par défaut du driver
+        CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new UserCodec(), new RideCodec(), new BookingCodec()),
+                MongoClientSettings.getDefaultCodecRegistry());
+
         MongoClientSettings settings = MongoClientSettings.builder()
                 .applyConnectionString(cs)
+                .codecRegistry(codecRegistry)
                 .build();
 
         client = MongoClients.create(settings);
@@ -56,4 +129,78 @@ public class MongoManager {
     public static MongoDatabase getDatabase() {
         return database;
     }
-}
\ No newline at end of file
+
+    /**
+     * Client MongoDB partagé (sessions et transactions).
+     */
+    public static MongoClient getClient() {
+        return client;
+    }
+
+    /**
+     * Les transactions multi-documents demandent un replica set (ou un cluster shardé):
+     * pas de transaction sur un MongoDB autonome.
+     * Tant que le driver n'a pas encore contacté le serveur, le type est inconnu: un ping
+     * attend la découverte du serveur (au plus serverSelectionTimeout, MongoException sinon).
+     * Le résultat est gardé une fois le type connu.
+     */
+    public static boolean supportsTransactions() {
+        Boolean known = transactions;
+        if (known != null) {
+            return known;
+        }
+        ClusterType type = client.getClusterDescription().getType();
+        if (type == ClusterType.UNKNOWN) {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+            type = client.getClusterDescription().getType();
+        }
+        boolean supported = type == ClusterType.REPLICA_SET || type == ClusterType.SHARDED;
+        if (type != ClusterType.UNKNOWN) {
+            transactions = supported;
+        }
+        return supported;
+    }
+
+    /**
+     * Crée les index déclarés dans INDEXES (à appeler au démarrage),
+     * puis supprime les anciens index qu'ils remplacent (SUPERSEDED).
+     * createIndex ne fait rien si l'index existe déjà: on peut l'appeler à chaque démarrage.
+     * Un index en échec (ex: doublons d'email) est journalisé sans bloquer les autres.
+     *
+     * @return nombre d'index vérifiés ou créés sans erreur
+     */
+    public static int ensureIndexes() {
+        int ok = 0;
+        for (IndexSpec spec : INDEXES) {
+            long start = System.nanoTime();
+            try {
+                database.getCollection(spec.collection()).createIndex(spec.keys(), spec.options());
+                long ms = (System.nanoTime() - start) / 1_000_000;
+                LOG.info("Index " + spec.collection() + "." + spec.options().getName() + " prêt en " + ms + " ms");
+                ok++;
+            } catch (MongoException e) {
+                LOG.log(Level.WARNING, "Création de l'index " + spec.collection() + "."
+                        + spec.options().getName() + " impossible", e);
+            }
+        }
+        dropSupersededIndexes();
+        return ok;
+    }
+
+    // Supprime les index de SUPERSEDED, une fois leurs remplaçants créés
+    private static void dropSupersededIndexes() {
+        for (IndexName index : SUPERSEDED) {
+            String name = index.collection() + "." + index.name();
+            try {
+                database.getCollection(index.collection()).dropIndex(index.name());
+                LOG.info("Ancien index " + name + " supprimé");
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() != INDEX_NOT_FOUND && e.getErrorCode() != NAMESPACE_NOT_FOUND) {
+                    LOG.log(Level.WARNING, "Suppression de l'ancien index " + name + " impossible", e);
+                }
+            } catch (MongoException e) {
+                LOG.log(Level.WARNING, "Suppression de l'ancien index " + name + " impossible", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.model.Booking;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Version asynchrone des lectures de BookingDao (voir AsyncRideDao).
+ */
+public class AsyncBookingDao {
+
+    private final BookingDao bookingDao;
+
+    public AsyncBookingDao() {
+        this(new BookingDao());
+    }
+
+    public AsyncBookingDao(BookingDao bookingDao) {
+        this.bookingDao = bookingDao;
+    }
+
+    public CompletionStage<Booking> findById(ObjectId id) {
+        return DaoExecutor.supply(() -> bookingDao.findById(id));
+    }
+
+    public CompletionStage<List<Booking>> findByRideId(ObjectId rideId) {
+        return DaoExecutor.supply(() -> bookingDao.findByRideId(rideId));
+    }
+
+    public CompletionStage<List<Booking>> findByRideIds(Collection<ObjectId> rideIds, String status,
+                                                        int offset, int limit) {
+        return DaoExecutor.supply(() -> bookingDao.findByRideIds(rideIds, status, offset, limit));
+    }
+
+    public CompletionStage<Map<ObjectId, List<Booking>>> findConfirmedByRideIds(Collection<ObjectId> rideIds) {
+        return DaoExecutor.supply(() -> bookingDao.findConfirmedByRideIds(rideIds));
+    }
+
+    public CompletionStage<Integer> countConfirmedSeatsForRide(ObjectId rideId) {
+        return DaoExecutor.supply(() -> bookingDao.countConfirmedSeatsForRide(rideId));
+    }
+}
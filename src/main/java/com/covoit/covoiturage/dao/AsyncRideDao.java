@@ -0,0 +1,51 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.model.Ride;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Version asynchrone des lectures de RideDao: chaque méthode retourne
+ * immédiatement un CompletionStage (voir DaoExecutor).
+ * Permet aux servlets asynchrones de ne pas bloquer leur thread,
+ * et de lancer plusieurs requêtes en même temps.
+ */
+public class AsyncRideDao {
+
+    private final RideDao rideDao;
+
+    public AsyncRideDao() {
+        this(new RideDao());
+    }
+
+    public AsyncRideDao(RideDao rideDao) {
+        this.rideDao = rideDao;
+    }
+
+    public CompletionStage<Ride> findById(ObjectId id) {
+        return DaoExecutor.supply(() -> rideDao.findById(id));
+    }
+
+    public CompletionStage<Map<ObjectId, Ride>> findByIds(Collection<ObjectId> ids) {
+        return DaoExecutor.supply(() -> rideDao.findByIds(ids));
+    }
+
+    public CompletionStage<List<Ride>> searchByCitiesAndDate(String departureCity,
+                                                             String arrivalCity,
+                                                             LocalDate date) {
+        return DaoExecutor.supply(() -> rideDao.searchByCitiesAndDate(departureCity, arrivalCity, date));
+    }
+
+    public CompletionStage<List<Ride>> findUpcoming(RideCursor after, int limit) {
+        return DaoExecutor.supply(() -> rideDao.findUpcoming(after, limit));
+    }
+
+    public CompletionStage<List<Ride>> findByDriverId(ObjectId driverId) {
+        return DaoExecutor.supply(() -> rideDao.findByDriverId(driverId));
+    }
+}
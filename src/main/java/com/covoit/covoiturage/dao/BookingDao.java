@@ -2,16 +2,19 @@ package com.covoit.covoiturage.dao;
 
 import com.covoit.covoiturage.config.MongoManager;
 import com.covoit.covoiturage.model.Booking;
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
-import java.time.LocalDateTime;
 //import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.mongodb.client.model.Filters.*;
 import com.covoit.covoiturage.util.DateTimeUtils;
@@ -25,119 +28,22 @@ import com.covoit.covoiturage.util.DateTimeUtils;
  */
 public class BookingDao {
 
-    private final MongoCollection<Document> col;
+    // la conversion BSON <-> Booking est faite par BookingCodec (enregistré dans MongoManager)
+    private final MongoCollection<Booking> col;
     //private final ZoneId zoneId = ZoneId.systemDefault();
 
     public BookingDao() {
         MongoDatabase db = MongoManager.getDatabase();
-        this.col = db.getCollection("bookings");
+        this.col = db.getCollection("bookings", Booking.class);
     }
 
-    /**
-     * Conversion Document -> Booking.
-     */
-    private Booking toBooking(Document doc) {
-        if (doc == null) return null;
-
-        Booking b = new Booking();
-        
-        b.setId(doc.getObjectId("_id"));
-        b.setRideId(doc.getObjectId("rideId"));
-        b.setPassengerId(doc.getObjectId("passengerId"));
-        b.setSeats(doc.getInteger("seats", 0));
-        // pour persister le statut et le code du ticket
-        b.setTicketCode(doc.getString("ticketCode"));
-        b.setStatus(doc.getString("status"));
-        // reponse du coducteur
-        b.setDriverMessage(doc.getString("driverMessage"));
-        // information pour le sous-trajet
-        b.setFromCity(doc.getString("fromCity"));
-        b.setToCity(doc.getString("toCity"));
-        b.setFromIndex(doc.getInteger("fromIndex", -1));
-        b.setToIndex(doc.getInteger("toIndex", -1));
-        b.setPricePerSeat(doc.getInteger("pricePerSeat", 0));
-        b.setTotalPrice(doc.getInteger("totalPrice", 0));
-
-        Object created = doc.getDate("createdAt");
-        /*if (created != null) {
-            /*LocalDateTime ldt = LocalDateTime.ofInstant(created.toInstant(), zoneId);
-            b.setCreatedAt(ldt);
-            b.setCreatedAt(DateTimeUtils.toLocalDateTime(created));
-
-        }*/
-        if (created instanceof java.time.LocalDateTime ldt) {
-            b.setCreatedAt(ldt);
-        } else if (created instanceof java.util.Date d) {
-            b.setCreatedAt(d.toInstant()
-                           .atZone(java.time.ZoneId.systemDefault())
-                           .toLocalDateTime());
-        } else if (created instanceof String s) {
-            // si tu as stocké une string ISO
-            b.setCreatedAt(LocalDateTime.parse(s));
-        }
-
-        return b;
-    }
-    
-    /*
-     * Méthode qui transforme un Booking en Document
-     */
-    private Document toDocument(Booking b) {
-        Document doc = new Document();
-
-        // 
-        doc.append("rideId", b.getRideId());
-        doc.append("passengerId", b.getPassengerId());
-        doc.append("seats", b.getSeats());
-        doc.append("status", b.getStatus());
-        doc.append("createdAt", b.getCreatedAt());
-
-        //  champ pour les spus trajets
-        doc.append("fromCity", b.getFromCity());
-        doc.append("toCity", b.getToCity());
-        doc.append("fromIndex", b.getFromIndex());
-        doc.append("toIndex", b.getToIndex());
-        doc.append("pricePerSeat", b.getPricePerSeat());
-        doc.append("totalPrice", b.getTotalPrice());
-
-        return doc;
-    }
-
-    
-
     /**
      * Insère une nouvelle réservation.
      */
     public void insert(Booking booking) {
-        Date createdDate = DateTimeUtils.toDate(booking.getCreatedAt());
-
-        /*Date createdDate = null;
-        if (booking.getCreatedAt() != null) {
-            createdDate = Date.from(booking.getCreatedAt().atZone(zoneId).toInstant());
-        }
-       */
-        Document doc = new Document();
-        	
-        if (booking.getId() != null) {
-        	doc.put("_id", booking.getId());
-        }
-        doc.append("rideId", booking.getRideId());
-        doc.append("passengerId", booking.getPassengerId());
-        doc.append("seats", booking.getSeats());
-        doc.append("createdAt", createdDate);
-		doc.append("ticketCode", booking.getTicketCode());
-		doc.append("status", booking.getStatus());
-		doc.append("driverMessage", booking.getDriverMessage());
-
-		doc.put("fromIndex", booking.getFromIndex());
-	    doc.put("toIndex", booking.getToIndex());
-	    doc.put("fromCity", booking.getFromCity());
-	    doc.put("toCity", booking.getToCity());
-	    doc.put("pricePerSeat", booking.getPricePerSeat());
-	    doc.put("totalPrice", booking.getTotalPrice());		
-
-        col.insertOne(doc);
-        booking.setId(doc.getObjectId("_id"));
+        // BookingCodec écrit le document (createdAt en date BSON)
+        // et renseigne l'id généré dans booking
+        col.insertOne(booking);
     }
 
     /**
@@ -145,64 +51,228 @@ public class BookingDao {
      */
     public List<Booking> findByPassengerId(ObjectId passengerId) {
         List<Booking> result = new ArrayList<>();
-        for (Document doc : col.find(eq("passengerId", passengerId))) {
-            result.add(toBooking(doc));
+        col.find(eq("passengerId", passengerId)).into(result);
+        return result;
+    }
+
+    /**
+     * Réservations d'un passager, les plus récentes d'abord, avec pagination.
+     *
+     * Si upcomingOnly est vrai, le filtre "trajet à venir" est fait dans Mongo:
+     * un $lookup sur rides ne garde que les réservations dont le trajet part
+     * après maintenant (seul _id du trajet est renvoyé par le $lookup).
+     */
+    public List<Booking> findByPassengerId(ObjectId passengerId, boolean upcomingOnly,
+                                           int offset, int limit) {
+        List<Booking> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
         }
+
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", new Document("passengerId", passengerId)));
+
+        if (upcomingOnly) {
+            Date now = DateTimeUtils.toDate(DateTimeUtils.nowApp());
+            pipeline.add(new Document("$lookup", new Document("from", "rides")
+                    .append("localField", "rideId")
+                    .append("foreignField", "_id")
+                    .append("pipeline", List.of(
+                            new Document("$match", new Document("departureDateTime", new Document("$gte", now))),
+                            new Document("$project", new Document("_id", 1))))
+                    .append("as", "upcomingRide")));
+            pipeline.add(new Document("$match", new Document("upcomingRide.0", new Document("$exists", true))));
+            pipeline.add(new Document("$unset", "upcomingRide"));
+        }
+
+        pipeline.add(new Document("$sort", new Document("createdAt", -1).append("_id", -1)));
+        pipeline.add(new Document("$skip", Math.max(0, offset)));
+        pipeline.add(new Document("$limit", limit));
+
+        col.aggregate(pipeline).into(result);
         return result;
     }
 
     /**
      * Calcule le nombre total de places déjà réservées pour un trajet donné.
      * Utile pour vérifier la disponibilité.
+     * La somme est faite par MongoDB ($group): un seul nombre revient au serveur.
      */
     public int countSeatsForRide(ObjectId rideId) {
-        int total = 0;
-        for (Document doc: col.find(eq("rideId", rideId))) {
-            Integer seats = doc.getInteger("seats");
-            if (seats != null) {
-                total += seats;
-            }
-        }
-        return total;
+        return sumSeats(new Document("rideId", rideId));
     }
     
-    //
+    // places des réservations confirmées uniquement
     public int countConfirmedSeatsForRide(ObjectId rideId) {
-        int total = 0;
-
-        for (Document doc : col.find(and(
-                eq("rideId", rideId),
-                eq("status", "CONFIRMED") // on ne compte que les réservations confirmées
-        ))) {
-            Integer seats = doc.getInteger("seats");
-            if (seats != null) {
-                total += seats;
-            }
+        return sumSeats(new Document("rideId", rideId).append("status", "CONFIRMED"));
+    }
+
+    /**
+     * Version groupée de countConfirmedSeatsForRide: une seule agrégation
+     * pour plusieurs trajets. Les trajets sans réservation confirmée sont absents de la map.
+     */
+    public Map<ObjectId, Integer> countConfirmedSeatsForRides(Collection<ObjectId> rideIds) {
+        Map<ObjectId, Integer> result = new HashMap<>();
+        if (rideIds == null || rideIds.isEmpty()) {
+            return result;
         }
-        return total;
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("rideId", new Document("$in", rideIds))
+                        .append("status", "CONFIRMED")),
+                new Document("$project", new Document("_id", 0).append("rideId", 1).append("seats", 1)),
+                new Document("$group", new Document("_id", "$rideId")
+                        .append("total", new Document("$sum", "$seats"))));
+
+        for (Document doc : col.aggregate(pipeline, Document.class)) {
+            result.put(doc.getObjectId("_id"), doc.get("total", Number.class).intValue());
+        }
+        return result;
+    }
+
+    /*
+     * $match -> $project -> $group: avec l'index (rideId, status, seats)
+     * la requête est couverte, MongoDB ne lit pas les documents eux-mêmes.
+     */
+    private int sumSeats(Document match) {
+        List<Document> pipeline = List.of(
+                new Document("$match", match),
+                new Document("$project", new Document("_id", 0).append("seats", 1)),
+                new Document("$group", new Document("_id", null)
+                        .append("total", new Document("$sum", "$seats"))));
+
+        Document doc = col.aggregate(pipeline, Document.class).first();
+        return (doc == null) ? 0 : doc.get("total", Number.class).intValue();
     }
     
     // recherche via id
     public Booking findById(ObjectId id) {
-        Document doc = col.find(eq("_id", id)).first();
-        return toBooking(doc);
+        return col.find(eq("_id", id)).first();
+    }
+
+    /**
+     * Recherche une réservation par son id, seulement si elle appartient au passager
+     * donné (une seule lecture par _id, au lieu de charger tout son historique).
+     */
+    public Booking findByIdAndPassenger(ObjectId id, ObjectId passengerId) {
+        return col.find(and(eq("_id", id), eq("passengerId", passengerId))).first();
     }
 
     public List<Booking> findByRideId(ObjectId rideId) {
         List<Booking> result = new ArrayList<>();
-        for (Document doc : col.find(eq("rideId", rideId))) {
-        	Booking b=toBooking(doc);
-        	if(b!=null) {
-               result.add(b);
-        	}
+        col.find(eq("rideId", rideId)).into(result);
+        return result;
+    }
+
+    /**
+     * Réservations d'un ensemble de trajets (page "Demandes reçues" du conducteur),
+     * en une seule requête ($in sur rideId) au lieu d'une requête par trajet.
+     *
+     * Tri: les demandes PENDING d'abord, puis les plus récentes.
+     *
+     * @param rideIds trajets du conducteur
+     * @param status  filtre optionnel sur le statut (null = tous)
+     * @param offset  nombre de réservations à sauter (pagination)
+     * @param limit   nombre maximum de réservations renvoyées
+     */
+    public List<Booking> findByRideIds(Collection<ObjectId> rideIds, String status, int offset, int limit) {
+        List<Booking> result = new ArrayList<>();
+        if (rideIds == null || rideIds.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        Document match = new Document("rideId", new Document("$in", rideIds));
+        if (status != null) {
+            match.append("status", status);
         }
+
+        List<Document> pipeline = List.of(
+                new Document("$match", match),
+                // rang de tri: 0 pour PENDING, 1 pour les autres statuts
+                new Document("$addFields", new Document("statusRank",
+                        new Document("$cond", List.of(
+                                new Document("$eq", List.of("$status", "PENDING")), 0, 1)))),
+                new Document("$sort", new Document("statusRank", 1)
+                        .append("createdAt", -1)
+                        .append("_id", -1)),
+                new Document("$skip", Math.max(0, offset)),
+                new Document("$limit", limit),
+                new Document("$unset", "statusRank")
+        );
+
+        col.aggregate(pipeline).into(result);
         return result;
     }
 
     /**
-     * Met à jour certains champs de la réservation.
+     * Réservations CONFIRMÉES de plusieurs trajets, regroupées par trajet,
+     * en une seule agrégation ($match puis $group par rideId).
+     * Seuls les champs utiles au calcul des places sont renvoyés
+     * (fromIndex, toIndex, seats).
      */
-    public void updateBooking(ObjectId id, String status, String driverMessage, String ticketCode) {
+    public Map<ObjectId, List<Booking>> findConfirmedByRideIds(Collection<ObjectId> rideIds) {
+        Map<ObjectId, List<Booking>> result = new HashMap<>();
+        if (rideIds == null || rideIds.isEmpty()) {
+            return result;
+        }
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("rideId", new Document("$in", rideIds))
+                        .append("status", "CONFIRMED")),
+                new Document("$group", new Document("_id", "$rideId")
+                        .append("bookings", new Document("$push", new Document()
+                                .append("fromIndex", "$fromIndex")
+                                .append("toIndex", "$toIndex")
+                                .append("seats", "$seats"))))
+        );
+
+        for (Document group : col.aggregate(pipeline, Document.class)) {
+            ObjectId rideId = group.getObjectId("_id");
+            List<Booking> bookings = new ArrayList<>();
+            for (Document d : group.getList("bookings", Document.class)) {
+                Booking b = new Booking();
+                b.setRideId(rideId);
+                b.setStatus("CONFIRMED");
+                b.setFromIndex(d.getInteger("fromIndex", -1));
+                b.setToIndex(d.getInteger("toIndex", -1));
+                b.setSeats(d.getInteger("seats", 0));
+                bookings.add(b);
+            }
+            result.put(rideId, bookings);
+        }
+        return result;
+    }
+
+    /**
+     * Met à jour certains champs de la réservation, seulement si son statut
+     * est encore expectedStatus (compare-and-set: un seul updateOne avec le statut
+     * dans le filtre). Deux décisions simultanées sur la même réservation
+     * ne peuvent donc pas réussir toutes les deux.
+     *
+     * @return true si la réservation a été modifiée, false si son statut avait déjà changé
+     */
+    public boolean updateBookingIfStatus(ObjectId id, String expectedStatus, String status,
+                                         String driverMessage, String ticketCode) {
+        Document updateDoc = statusUpdate(status, driverMessage, ticketCode);
+        if (updateDoc.isEmpty()) {
+            return false;
+        }
+        return col.updateOne(and(eq("_id", id), eq("status", expectedStatus)),
+                new Document("$set", updateDoc)).getModifiedCount() == 1;
+    }
+
+    // Même compare-and-set, dans la transaction de session.
+    public boolean updateBookingIfStatus(ClientSession session, ObjectId id, String expectedStatus,
+                                         String status, String driverMessage, String ticketCode) {
+        Document updateDoc = statusUpdate(status, driverMessage, ticketCode);
+        if (updateDoc.isEmpty()) {
+            return false;
+        }
+        return col.updateOne(session, and(eq("_id", id), eq("status", expectedStatus)),
+                new Document("$set", updateDoc)).getModifiedCount() == 1;
+    }
+
+    private static Document statusUpdate(String status, String driverMessage, String ticketCode) {
         Document updateDoc = new Document();
         if (status != null) {
             updateDoc.append("status", status);
@@ -213,8 +283,6 @@ public class BookingDao {
         if (ticketCode != null) {
             updateDoc.append("ticketCode", ticketCode);
         }
-        if (!updateDoc.isEmpty()) {
-            col.updateOne(eq("_id", id), new Document("$set", updateDoc));
-        }
+        return updateDoc;
     }
 }
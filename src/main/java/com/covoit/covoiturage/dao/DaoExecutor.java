@@ -0,0 +1,38 @@
+package com.covoit.covoiturage.dao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Exécuteur partagé par les DAO asynchrones (AsyncRideDao, AsyncBookingDao).
+ *
+ * Les appels MongoDB restent ceux du driver synchrone (même client, mêmes codecs,
+ * même pool de connexions); chaque appel tourne sur un thread virtuel, qui se
+ * met en attente sans bloquer un thread de Tomcat ni un thread système.
+ */
+public final class DaoExecutor {
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dao-", 0).factory());
+
+    private DaoExecutor() {
+        // Constructeur privé
+    }
+
+    /**
+     * Lance l'appel DAO en arrière-plan et retourne son résultat futur.
+     * L'appel garde le RequestCache de la requête en cours.
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(RequestCache.propagate(call), EXECUTOR);
+    }
+
+    /**
+     * Arrêt à la fin de l'application (StartupListener.contextDestroyed).
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+}
@@ -0,0 +1,114 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.model.User;
+import org.bson.types.ObjectId;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache de premier niveau, limité à UNE requête HTTP ("identity map").
+ *
+ * Pendant une requête, RideDao.findById et UserDao.findById ne lisent MongoDB
+ * qu'une fois par id: les appels suivants renvoient le même objet.
+ * Le cache est ouvert et fermé par RequestCacheFilter; en dehors d'une requête
+ * (démarrage, migrations, tests) il n'y a pas de cache et les DAO lisent la base.
+ *
+ * Les maps sont des ConcurrentHashMap, et DaoExecutor transmet le cache courant
+ * à ses tâches: une servlet asynchrone partage donc le cache de sa requête.
+ */
+public final class RequestCache {
+
+    private static final ThreadLocal<RequestCache> CURRENT = new ThreadLocal<>();
+
+    private final Map<ObjectId, Ride> rides = new ConcurrentHashMap<>();
+    private final Map<ObjectId, User> users = new ConcurrentHashMap<>();
+
+    /**
+     * Cache attaché au thread courant (null en dehors d'une requête).
+     */
+    public static RequestCache current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Attache un cache au thread courant et retourne le cache précédent
+     * (à redonner à restore() en fin de traitement).
+     */
+    public static RequestCache bind(RequestCache cache) {
+        RequestCache previous = CURRENT.get();
+        if (cache == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(cache);
+        }
+        return previous;
+    }
+
+    public static void restore(RequestCache previous) {
+        bind(previous);
+    }
+
+    /**
+     * Enveloppe un appel pour qu'il s'exécute avec le cache du thread appelant
+     * (utilisé par DaoExecutor avant de passer sur un autre thread).
+     *
+     * Le cache n'est pas détaché à la fin de l'appel: DaoExecutor crée un thread
+     * virtuel par tâche, et les étapes enchaînées (thenCompose, whenComplete...)
+     * qui s'exécutent sur ce thread doivent encore voir le cache de la requête.
+     */
+    static <T> Supplier<T> propagate(Supplier<T> call) {
+        RequestCache cache = current();
+        if (cache == null) {
+            return call;
+        }
+        return () -> {
+            bind(cache);
+            return call.get();
+        };
+    }
+
+    // Trajet déjà chargé pendant la requête, sinon lecture via loader
+    static Ride ride(ObjectId id, Function<ObjectId, Ride> loader) {
+        RequestCache cache = current();
+        return (cache == null) ? loader.apply(id) : lookup(cache.rides, id, loader);
+    }
+
+    static User user(ObjectId id, Function<ObjectId, User> loader) {
+        RequestCache cache = current();
+        return (cache == null) ? loader.apply(id) : lookup(cache.users, id, loader);
+    }
+
+    // Le trajet a changé en base (registre seatsUsed...): il sera relu au prochain findById
+    static void evictRide(ObjectId id) {
+        RequestCache cache = current();
+        if (cache != null && id != null) {
+            cache.rides.remove(id);
+        }
+    }
+
+    /*
+     * get puis putIfAbsent (et non computeIfAbsent): la lecture Mongo se fait
+     * hors du verrou de la map. Si deux threads lisent le même id en même temps,
+     * le premier objet enregistré est celui que tout le monde reçoit.
+     * Les ids introuvables ne sont pas mémorisés.
+     */
+    private static <T> T lookup(Map<ObjectId, T> map, ObjectId id, Function<ObjectId, T> loader) {
+        if (id == null) {
+            return null;
+        }
+        T cached = map.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        T loaded = loader.apply(id);
+        if (loaded == null) {
+            return null;
+        }
+        T existing = map.putIfAbsent(id, loaded);
+        return (existing != null) ? existing : loaded;
+    }
+}
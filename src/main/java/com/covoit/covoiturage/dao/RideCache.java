@@ -0,0 +1,163 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.config.AppSettings;
+import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.util.TtlLruCache;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache des trajets partagé par toute l'application, devant RideDao.findById / findByIds.
+ *  - borné en taille (LRU) et en durée (TTL), voir TtlLruCache
+ *  - compteurs de hits / misses
+ *  - invalidation explicite (invalidate / invalidateAll)
+ *
+ * Un trajet n'est pas modifié après sa création, sauf son registre seatsUsed:
+ * RideDao invalide l'entrée à chaque reserveSeats / releaseSeats / initSeatLedger.
+ * Le TTL borne le retard possible si une autre instance de l'application
+ * modifie le trajet (la réservation des places reste atomique dans Mongo).
+ *
+ * Une invalidation peut arriver pendant la lecture en base d'un trajet manquant:
+ * le trajet lu est peut-être déjà périmé et ne doit pas être remis en cache.
+ * Chaque id a donc un numéro de génération (tableau de compteurs, indexé par le hash
+ * de l'id), incrémenté AVANT le retrait de l'entrée. On le note avant la lecture,
+ * et l'on ne met en cache que s'il n'a pas changé (TtlLruCache.putIf).
+ * Deux ids qui partagent un compteur s'empêchent au pire une mise en cache.
+ *
+ * Paramètres (voir AppSettings):
+ *  - covoit.rideCache.enabled    (true par défaut, false pour désactiver, ex. en test)
+ *  - covoit.rideCache.size       nombre maximum de trajets (5000)
+ *  - covoit.rideCache.ttlSeconds durée de vie d'une entrée (60)
+ */
+public final class RideCache {
+
+    private static final RideCache SHARED = new RideCache(
+            AppSettings.getBoolean("covoit.rideCache.enabled", true),
+            AppSettings.getInt("covoit.rideCache.size", 5000),
+            Duration.ofSeconds(AppSettings.getInt("covoit.rideCache.ttlSeconds", 60)));
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final boolean enabled;
+    private final TtlLruCache<ObjectId, Ride> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    RideCache(boolean enabled, int maxEntries, Duration ttl) {
+        this.enabled = enabled;
+        this.cache = new TtlLruCache<>(maxEntries, ttl);
+    }
+
+    // Instance utilisée par tous les RideDao
+    public static RideCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Trajet en cache, sinon lecture via loader (le résultat est mis en cache).
+     */
+    Ride get(ObjectId id, Function<ObjectId, Ride> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        Ride ride = cache.get(id);
+        if (ride != null) {
+            hits.increment();
+            return ride;
+        }
+        misses.increment();
+        int stripe = stripe(id);
+        long stamp = generations.get(stripe);
+        ride = loader.apply(id);
+        cache.putIf(id, ride, () -> generations.get(stripe) == stamp);
+        return ride;
+    }
+
+    /**
+     * Version groupée: seuls les ids absents du cache sont passés à loader
+     * (une seule requête $in pour tous les manquants).
+     */
+    Map<ObjectId, Ride> getAll(Collection<ObjectId> ids,
+                               Function<Collection<ObjectId>, Map<ObjectId, Ride>> loader) {
+        if (!enabled) {
+            return loader.apply(ids);
+        }
+        Map<ObjectId, Ride> result = new HashMap<>();
+        List<ObjectId> missing = new ArrayList<>();
+        for (ObjectId id : ids) {
+            Ride ride = cache.get(id);
+            if (ride != null) {
+                result.put(id, ride);
+            } else {
+                missing.add(id);
+            }
+        }
+        hits.add(result.size());
+        misses.add(missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<ObjectId, Long> stamps = new HashMap<>();
+            for (ObjectId id : missing) {
+                stamps.put(id, generations.get(stripe(id)));
+            }
+            Map<ObjectId, Ride> loaded = loader.apply(missing);
+            for (Map.Entry<ObjectId, Ride> e : loaded.entrySet()) {
+                Long stamp = stamps.get(e.getKey());
+                if (stamp != null) {
+                    int stripe = stripe(e.getKey());
+                    cache.putIf(e.getKey(), e.getValue(), () -> generations.get(stripe) == stamp);
+                }
+            }
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    // Le trajet a changé en base (places, modification, annulation...)
+    public void invalidate(ObjectId id) {
+        if (id != null) {
+            // d'abord la génération: une lecture en cours ne remettra pas l'ancien trajet
+            generations.incrementAndGet(stripe(id));
+            cache.remove(id);
+        }
+    }
+
+    // Changement de masse (migration...): on vide tout
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.clear();
+    }
+
+    private static int stripe(ObjectId id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+}
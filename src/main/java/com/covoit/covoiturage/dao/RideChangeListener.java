@@ -0,0 +1,199 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.config.AppSettings;
+import com.covoit.covoiturage.config.MongoManager;
+import com.covoit.covoiturage.util.DateTimeUtils;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Invalidation des caches de trajets entre instances, par un change stream MongoDB
+ * sur la collection "rides".
+ *
+ * Chaque instance garde ses propres caches (RideCache, RideSearchCache) et les vide
+ * déjà pour ses propres écritures (RideDao.evict). Quand plusieurs instances tournent
+ * derrière un répartiteur, les écritures des autres instances arrivent ici:
+ *  - insert: les recherches du jour de départ sont retirées (comme RideDao.insert)
+ *  - update / replace / delete: le trajet est retiré des deux caches
+ *  - flux interrompu: tout est vidé (des événements ont pu être perdus), puis reprise
+ *    au dernier resume token
+ *
+ * Le change stream demande un replica set (un seul noeud suffit, voir docker-compose.yml).
+ * Sur un MongoDB autonome, l'écoute s'arrête avec un avertissement et l'on retombe
+ * sur la durée de vie des caches. Paramètre: covoit.changeStream.enabled (true par défaut).
+ */
+public final class RideChangeListener {
+
+    private static final Logger LOG = Logger.getLogger(RideChangeListener.class.getName());
+
+    // "The $changeStream stage is only supported on replica sets"
+    private static final int NOT_A_REPLICA_SET = 40573;
+    // resume token trop ancien (oplog déjà recyclé)
+    private static final int HISTORY_LOST = 286;
+
+    private static final List<OperationType> WATCHED = List.of(
+            OperationType.INSERT, OperationType.UPDATE, OperationType.REPLACE, OperationType.DELETE);
+
+    private static RideChangeListener running;
+
+    private final RideCache rideCache;
+    private final RideSearchCache searchCache;
+    private final Runnable onNewRide;
+    private final LongAdder events = new LongAdder();
+
+    private volatile boolean stopped;
+    private Thread thread;
+    private BsonDocument resumeToken;
+
+    RideChangeListener(RideCache rideCache, RideSearchCache searchCache, Runnable onNewRide) {
+        this.rideCache = rideCache;
+        this.searchCache = searchCache;
+        this.onNewRide = onNewRide;
+    }
+
+    /**
+     * Démarre l'écoute (StartupListener.contextInitialized).
+     * @param onNewRide appelé quand un trajet est créé (par n'importe quelle instance)
+     */
+    public static synchronized void start(Runnable onNewRide) {
+        if (running != null || !AppSettings.getBoolean("covoit.changeStream.enabled", true)) {
+            return;
+        }
+        running = new RideChangeListener(RideCache.shared(), RideSearchCache.shared(), onNewRide);
+        running.thread = new Thread(running::watchLoop, "ride-change-stream");
+        running.thread.setDaemon(true);
+        running.thread.start();
+    }
+
+    /**
+     * Arrêt à la fin de l'application (StartupListener.contextDestroyed).
+     */
+    public static synchronized void stop() {
+        if (running != null) {
+            running.stopped = true;
+            running.thread.interrupt();
+            running = null;
+        }
+    }
+
+    // nombre d'événements reçus (MetricsServlet), 0 si l'écoute n'est pas active
+    public static long getEvents() {
+        RideChangeListener listener = running;
+        return (listener == null) ? 0 : listener.events.sum();
+    }
+
+    public static boolean isActive() {
+        RideChangeListener listener = running;
+        return listener != null && !listener.stopped;
+    }
+
+    private void watchLoop() {
+        long backoffMillis = 500;
+        while (!stopped) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = watch().cursor()) {
+                LOG.info("Change stream des trajets ouvert");
+                backoffMillis = 500;
+                while (!stopped) {
+                    // attend au plus maxAwaitTime, pour pouvoir vérifier "stopped"
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        onChange(change.getOperationType(), change.getDocumentKey(), change.getFullDocument());
+                        resumeToken = change.getResumeToken();
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == NOT_A_REPLICA_SET) {
+                    LOG.warning("MongoDB n'est pas un replica set: pas d'invalidation des caches entre instances.");
+                    stopped = true;
+                    return;
+                }
+                if (e.getErrorCode() == HISTORY_LOST) {
+                    // les caches sont vidés par recover(): on repart de maintenant
+                    resumeToken = null;
+                }
+                backoffMillis = recover(e, backoffMillis);
+            } catch (MongoException | IllegalStateException e) {
+                if (stopped) {
+                    return;
+                }
+                backoffMillis = recover(e, backoffMillis);
+            }
+        }
+    }
+
+    private ChangeStreamIterable<Document> watch() {
+        ChangeStreamIterable<Document> stream = MongoManager.getDatabase().getCollection("rides")
+                .watch(List.of(Aggregates.match(Filters.in("operationType",
+                        WATCHED.stream().map(OperationType::getValue).toList()))))
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        return (resumeToken == null) ? stream : stream.resumeAfter(resumeToken);
+    }
+
+    // Flux coupé: des modifications ont pu être manquées, on vide les caches puis on attend un peu.
+    private long recover(RuntimeException e, long backoffMillis) {
+        LOG.log(Level.WARNING, "Change stream des trajets interrompu, reprise dans " + backoffMillis + " ms", e);
+        rideCache.invalidateAll();
+        searchCache.invalidateAll();
+        try {
+            Thread.sleep(backoffMillis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        }
+        return Math.min(backoffMillis * 2, 30_000);
+    }
+
+    /**
+     * Applique un événement du change stream aux caches de cette instance.
+     * fullDocument n'est présent que pour les insertions.
+     */
+    void onChange(OperationType operation, BsonDocument documentKey, Document fullDocument) {
+        events.increment();
+
+        BsonValue idValue = (documentKey == null) ? null : documentKey.get("_id");
+        ObjectId id = (idValue != null && idValue.isObjectId()) ? idValue.asObjectId().getValue() : null;
+
+        switch (operation) {
+            case INSERT -> {
+                Date departure = (fullDocument == null) ? null : fullDocument.getDate("departureDateTime");
+                if (departure != null) {
+                    searchCache.invalidateDate(DateTimeUtils.toLocalDateTime(departure).toLocalDate());
+                } else {
+                    searchCache.invalidateAll();
+                }
+                if (onNewRide != null) {
+                    onNewRide.run();
+                }
+            }
+            case UPDATE, REPLACE, DELETE -> {
+                if (id != null) {
+                    rideCache.invalidate(id);
+                    searchCache.invalidateRide(id);
+                } else {
+                    rideCache.invalidateAll();
+                    searchCache.invalidateAll();
+                }
+            }
+            default -> {
+                // autres événements (drop, rename...): rien en cache ne les concerne
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.util.DateTimeUtils;
+import org.bson.types.ObjectId;
+
+import java.util.Date;
+
+/**
+ * Curseur de pagination des prochains trajets: position (departureDateTime, _id)
+ * du dernier trajet affiché. La page suivante commence juste après.
+ *
+ * Dans l'URL (/rides?after=...), le curseur s'écrit "<millis>_<id hexadécimal>",
+ * par exemple "1718280000000_665f1c2e8b3a4d2f9c0e1a7b".
+ */
+public record RideCursor(Date departure, ObjectId id) {
+
+    // Position du trajet donné (dernier trajet d'une page)
+    public static RideCursor after(Ride ride) {
+        if (ride == null || ride.getId() == null || ride.getDepartureDateTime() == null) {
+            return null;
+        }
+        return new RideCursor(DateTimeUtils.toDate(ride.getDepartureDateTime()), ride.getId());
+    }
+
+    /**
+     * Lit un curseur venant de l'URL.
+     * @return null si la valeur est absente ou illisible (on repart de la première page)
+     */
+    public static RideCursor parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        int sep = value.indexOf('_');
+        if (sep <= 0) {
+            return null;
+        }
+        try {
+            long millis = Long.parseLong(value.substring(0, sep));
+            String hex = value.substring(sep + 1);
+            if (!ObjectId.isValid(hex)) {
+                return null;
+            }
+            return new RideCursor(new Date(millis), new ObjectId(hex));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return departure.getTime() + "_" + id.toHexString();
+    }
+}
@@ -2,16 +2,26 @@ package com.covoit.covoiturage.dao;
 
 import com.covoit.covoiturage.config.MongoManager;
 import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.model.RideSummary;
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
 import java.time.LocalDate;
 //import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static com.mongodb.client.model.Filters.*;
 import com.covoit.covoiturage.util.DateTimeUtils;
@@ -23,59 +33,52 @@ import com.covoit.covoiturage.util.DateTimeUtils;
  */
 public class RideDao {
 
-    private final MongoCollection<Document> col;
+    // taille des lots pour les migrations (bulkWrite)
+    private static final int MIGRATION_BATCH_SIZE = 500;
+
+    // Champs lus pour une RideSummary (page d'accueil): pas de stops, segmentPrices, seatsUsed...
+    // La description est réduite côté MongoDB à un extrait ($substrCP).
+    private static final Document SUMMARY_PROJECTION = new Document()
+            .append("departureCity", 1)
+            .append("arrivalCity", 1)
+            .append("departureDateTime", 1)
+            .append("totalSeats", 1)
+            .append("pricePerSeat", 1)
+            .append("pathCities", 1)
+            .append("descriptionExcerpt", new Document("$substrCP", List.of(
+                    new Document("$ifNull", List.of("$description", "")),
+                    0,
+                    RideSummary.DESCRIPTION_EXCERPT_LENGTH)))
+            .append("descriptionTruncated", new Document("$gt", List.of(
+                    new Document("$strLenCP", new Document("$ifNull", List.of("$description", ""))),
+                    RideSummary.DESCRIPTION_EXCERPT_LENGTH)));
+
+    // la conversion BSON <-> Ride est faite par RideCodec (enregistré dans MongoManager)
+    private final MongoCollection<Ride> col;
+    // cache partagé des trajets (findById / findByIds), invalidé à chaque écriture
+    private final RideCache rideCache = RideCache.shared();
+    // cache court des recherches (villes + date)
+    private final RideSearchCache searchCache = RideSearchCache.shared();
     // Zone utilisée pour convertir Date <-> LocalDateTime 
    // private final ZoneId zoneId = ZoneId.systemDefault();
 
     public RideDao() {
         MongoDatabase db = MongoManager.getDatabase();
-        this.col = db.getCollection("rides");
+        this.col = db.getCollection("rides", Ride.class);
     }
 
-    /**
-     * Convertit un Document Mongo en objet Ride.
-     * (C'est la "traduction" base de données -> Java)
-     */
-    private Ride toRide(Document doc) {
-        if (doc == null) return null;
-
-        Ride r = new Ride();
-        
-        // Identifiants
+    // Document projeté (SUMMARY_PROJECTION) -> RideSummary
+    private RideSummary toRideSummary(Document doc) {
+        RideSummary r = new RideSummary();
         r.setId(doc.getObjectId("_id"));
-        r.setDriverId(doc.getObjectId("driverId"));
-        
-        // Villes de départ/arrivée stockées en base normalisées en minuscule
         r.setDepartureCity(doc.getString("departureCity"));
         r.setArrivalCity(doc.getString("arrivalCity"));
-
-        // Date/heure de départ stockée en java.util.Date dans Mongo
-        Date date = doc.getDate("departureDateTime");
-        if (date != null) {
-            /*LocalDateTime ldt = LocalDateTime.ofInstant(date.toInstant(), zoneId);
-            r.setDepartureDateTime(ldt);*/
-            r.setDepartureDateTime(DateTimeUtils.toLocalDateTime(date));
-
-        }
-
-        r.setDepartureDateTime(DateTimeUtils.toLocalDateTime(date));
-
+        r.setDepartureDateTime(DateTimeUtils.toLocalDateTime(doc.getDate("departureDateTime")));
         r.setTotalSeats(doc.getInteger("totalSeats", 0));
         r.setPricePerSeat(doc.getInteger("pricePerSeat", 0));
-        r.setDescription(doc.getString("description"));
-        
-        // Liste des arrêts éventuellement stockée en base
-        List<String> stops = doc.getList("stops", String.class);
-        if (stops != null) {
-            r.setStops(stops);   //le setter gère le cas null-> nouvelle ArrayList
-        }
-        
-        // liste des prix par segment
-        List<Integer> segPrices = doc.getList("segmentPrices", Integer.class);
-        if (segPrices != null) {
-            r.setSegmentPrices(segPrices);
-        }
-        
+        r.setDescriptionExcerpt(doc.getString("descriptionExcerpt"));
+        r.setDescriptionTruncated(doc.getBoolean("descriptionTruncated", false));
+        r.setPathCities(doc.getList("pathCities", String.class));
         return r;
     }
 
@@ -84,47 +87,63 @@ public class RideDao {
      * java-> Mongo
      */
     public void insert(Ride ride) {
-    	// Conversion LocalDateTime en java.util.Date pour Mongo
-        Date date = DateTimeUtils.toDate(ride.getDepartureDateTime());
-        
-        // Normalisation des villes pour la base (tout en minuscule).
-        String depNorm = Ride.normalizeCity(ride.getDepartureCity());
-        String arrNorm = Ride.normalizeCity(ride.getArrivalCity());
-
-        // Document à inserer
-        Document doc = new Document()
-                .append("driverId", ride.getDriverId())
-                .append("departureCity",depNorm)
-                .append("arrivalCity", arrNorm )
-                .append("departureDateTime", date)
-                .append("totalSeats", ride.getTotalSeats())
-                .append("pricePerSeat", ride.getPricePerSeat())
-                .append("description", ride.getDescription())
-                .append("stops", ride.getStops());
-        
-        // verifie et enregistre le prix par segment
-        if (ride.getSegmentPrices() != null) {
-            doc.put("segmentPrices", ride.getSegmentPrices());
-        }
+        // registre des places confirmées: 0 sur chaque segment à la création
+        int nbSegments = Math.max(0, ride.getFullPath().size() - 1);
+        ride.setSeatsUsed(new ArrayList<>(Collections.nCopies(nbSegments, 0)));
 
-        // Insertion en base
-        col.insertOne(doc);
-        // On met à jour l'id dans l'objet métier après l'insert
-        ride.setId(doc.getObjectId("_id"));
+        // Insertion en base: RideCodec écrit les villes normalisées, la date,
+        // "pathCities" et "seatsUsed", puis renseigne l'id généré dans ride
+        col.insertOne(ride);
+
+        // les recherches déjà en cache pour ce jour ne contiennent pas le nouveau trajet
+        if (ride.getDepartureDateTime() != null) {
+            searchCache.invalidateDate(ride.getDepartureDateTime().toLocalDate());
+        }
     }
     
     /**
      * Récupère un trajet par son id MongoDB (ObjectId).
+     * Pendant une requête HTTP, un même id n'est lu qu'une fois (voir RequestCache);
+     * entre les requêtes, les trajets sont gardés dans RideCache.
      */
     public Ride findById(ObjectId id) {
         if (id == null) {
             return null;
         }
-        Document doc = col.find(eq("_id", id)).first();
-        return toRide(doc);
+        return RequestCache.ride(id, key -> rideCache.get(key, k -> col.find(eq("_id", k)).first()));
+    }
+
+    /**
+     * Lecture directe en base, sans RequestCache ni RideCache: pour un contrôle
+     * qui doit voir le registre seatsUsed à jour (sous le verrou du trajet).
+     * Le résultat n'est pas mis en cache.
+     */
+    public Ride findByIdFromDb(ObjectId id) {
+        if (id == null) {
+            return null;
+        }
+        return col.find(eq("_id", id)).first();
     }
     
 
+    /**
+     * Charge plusieurs trajets en une seule requête ($in sur _id).
+     * Les trajets présents dans RideCache ne sont pas relus.
+     * @return id -> trajet (les ids introuvables sont absents de la map)
+     */
+    public Map<ObjectId, Ride> findByIds(Collection<ObjectId> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return rideCache.getAll(ids, missing -> {
+            Map<ObjectId, Ride> result = new HashMap<>();
+            for (Ride r : col.find(in("_id", missing))) {
+                result.put(r.getId(), r);
+            }
+            return result;
+        });
+    }
+
     /**
      * Récupère un trajet par son id MongoDB (String).
      */
@@ -141,8 +160,7 @@ public class RideDao {
             return null;
         }
 
-        Document doc = col.find(eq("_id", id)).first();
-        return toRide(doc);
+        return findById(id);
     }
 
     
@@ -150,13 +168,14 @@ public class RideDao {
     /**
      * Recherche des trajets par ville et date du jour, INSENSIBLE à la casse.
      *
-     *  - filtre Mongo uniquement sur la date de départ
-     *  - reconstruit le chemin complet du trajet (départ, arrêts et arrivée)
-     *  - normalise tout en minuscule
-     *  - vérifie que:
-     *      * le chemin contient la ville de départ recherchée
-     *      * le chemin contient la ville d'arrivée recherchée
-     *      * l'arrivée est après le départ dans ce chemin
+     *  - filtre Mongo sur "pathCities" (chemin normalisé en minuscules) qui doit
+     *    contenir les deux villes, et sur la date de départ
+     *    (index composé pathCities + departureDateTime)
+     *  - vérifie ensuite en Java que l'arrivée est après le départ dans ce chemin,
+     *    ce que Mongo ne sait pas exprimer simplement
+     *
+     * Les résultats sont gardés quelques secondes dans RideSearchCache
+     * (liste non modifiable).
      */
      public List<Ride> searchByCitiesAndDate(String departureCity,
                                             String arrivalCity,
@@ -166,66 +185,34 @@ public class RideDao {
         String fromNorm = Ride.normalizeCity(departureCity);
         String toNorm   = Ride.normalizeCity(arrivalCity);
 
+        return searchCache.get(new RideSearchCache.Key(fromNorm, toNorm, date),
+                () -> querySearch(fromNorm, toNorm, date));
+    }
+
+    // Recherche dans MongoDB (villes déjà normalisées)
+    private List<Ride> querySearch(String fromNorm, String toNorm, LocalDate date) {
+
         // plage de dates (jour donné)
         Date start = DateTimeUtils.startOfDay(date);
         Date end   = DateTimeUtils.startOfNextDay(date);
 
-        List<Ride> result = new ArrayList<>();
-
-        // On ne filtre en base QUE sur la date
-        for (Document doc : col.find(and(
-                gte("departureDateTime", start),
-                lt("departureDateTime", end)
-        ))) {
-            Ride ride = toRide(doc);
-            if (ride == null) continue;
-
-            // On récupère le chemin complet du trajet
-            List<String> path = ride.getFullPath();
-            if (path == null || path.isEmpty()) {
-                continue;
-            }
-
-            // on normalise toutes les villes du chemin en minuscule
-            List<String> normalizedPath = new ArrayList<>();
-            for (String city : path) {
-                String n = Ride.normalizeCity(city); // trim et toLowerCase
-                if (n != null) {
-                    normalizedPath.add(n);
-                }
-            }
-            if (normalizedPath.isEmpty()) {
-                continue;
-            }
-
-            // On cherche les positions dans ce chemin
-            int fromIndex;
-            int toIndex;
-
-            if (fromNorm != null) {
-                fromIndex = normalizedPath.indexOf(fromNorm);
-                if (fromIndex < 0) {
-                    // le trajet ne passe pas par la ville de départ recherchée
-                    continue;
-                }
-            } else {
-                // Si pas de ville de départ saisie => début du trajet
-                fromIndex = 0;
-            }
+        List<Bson> filters = new ArrayList<>();
+        List<String> cities = new ArrayList<>();
+        if (fromNorm != null) cities.add(fromNorm);
+        if (toNorm != null) cities.add(toNorm);
+        if (!cities.isEmpty()) {
+            filters.add(all("pathCities", cities));
+        }
+        filters.add(gte("departureDateTime", start));
+        filters.add(lt("departureDateTime", end));
 
-            if (toNorm != null) {
-                toIndex = normalizedPath.lastIndexOf(toNorm);
-                if (toIndex < 0) {
-                    // le trajet ne passe pas par la ville d'arrivée recherchée
-                    continue;
-                }
-            } else {
-                // pas de ville d'arrivée saisie => fin du trajet
-                toIndex = normalizedPath.size() - 1;
-            }
+        List<Ride> result = new ArrayList<>();
 
-            // l'arrivée doit être APRÈS le départ
-            if (toIndex <= fromIndex) {
+        for (Ride ride : col.find(and(filters))) {
+            // positions dans le chemin normalisé (le même que "pathCities"):
+            // pas de ville de départ saisie => début, pas d'arrivée => fin,
+            // et l'arrivée doit être APRÈS le départ
+            if (ride.findSubRideIndices(fromNorm, toNorm) == null) {
                 continue;
             }
 
@@ -236,16 +223,58 @@ public class RideDao {
         return result;
     }
 
+    // tri des prochains trajets; _id départage les trajets qui partent à la même heure
+    private static final Document UPCOMING_SORT = new Document("departureDateTime", 1).append("_id", 1);
+
     /**
-     * Liste les trajets les plus récents (par exemple pour la page d'accueil).
-     * Ici on trie par date de départ croissante.
+     * Liste les prochains trajets (par exemple pour la page d'accueil):
+     * départ à partir de maintenant, par date de départ croissante.
      */
     public List<Ride> findLatest(int limit) {
+        return findUpcoming(null, limit);
+    }
+
+    /**
+     * Page de prochains trajets, par pagination "keyset": la page commence juste
+     * après le curseur (departureDateTime, _id) du dernier trajet de la page précédente.
+     * Avec l'index (departureDateTime, _id), une page lointaine coûte autant que
+     * la première (pas de skip).
+     *
+     * @param after curseur de la page précédente (null = première page, à partir de maintenant)
+     * @param limit nombre maximum de trajets
+     */
+    public List<Ride> findUpcoming(RideCursor after, int limit) {
         List<Ride> result = new ArrayList<>();
-        for (Document doc:col.find()
-                .sort(new Document("departureDateTime", 1)) 
+        if (limit <= 0) {
+            return result;
+        }
+
+        Bson filter = gte("departureDateTime", DateTimeUtils.toDate(DateTimeUtils.nowApp()));
+        if (after != null) {
+            filter = and(filter, or(
+                    gt("departureDateTime", after.departure()),
+                    and(eq("departureDateTime", after.departure()), gt("_id", after.id()))));
+        }
+
+        col.find(filter)
+                .sort(UPCOMING_SORT)
+                .limit(limit)
+                .into(result);
+        return result;
+    }
+    
+    /**
+     * Même liste que findLatest, mais en ne lisant que les champs
+     * affichés sur les cartes de la page d'accueil (voir SUMMARY_PROJECTION).
+     */
+    public List<RideSummary> findLatestSummaries(int limit) {
+        List<RideSummary> result = new ArrayList<>();
+        for (Document doc : col.find(gte("departureDateTime", DateTimeUtils.toDate(DateTimeUtils.nowApp())),
+                        Document.class)
+                .projection(SUMMARY_PROJECTION)
+                .sort(UPCOMING_SORT)
                 .limit(limit)) {
-            result.add(toRide(doc));
+            result.add(toRideSummary(doc));
         }
         return result;
     }
@@ -253,11 +282,155 @@ public class RideDao {
     // Récupère tous les trajets d'un conducteur donné.
     public List<Ride> findByDriverId(ObjectId driverId) {
         List<Ride> result = new ArrayList<>();
-        for (Document doc : col.find(eq("driverId", driverId))) {
-            result.add(toRide(doc));
+        col.find(eq("driverId", driverId)).into(result);
+        return result;
+    }
+
+    /**
+     * Réserve atomiquement des places sur les segments [fromIndex, toIndex[ du trajet.
+     *
+     * Un seul updateOne: le filtre vérifie que chaque segment concerné peut
+     * encore accueillir "seats" places, et le $inc n'est appliqué que si c'est
+     * le cas. Deux confirmations simultanées ne peuvent donc pas dépasser totalSeats.
+     *
+     * @return true si les places ont été réservées, false s'il n'y a plus assez de places
+     */
+    public boolean reserveSeats(ObjectId rideId, int fromIndex, int toIndex, int seats, int totalSeats) {
+        boolean reserved = col.updateOne(reserveFilter(rideId, fromIndex, toIndex, seats, totalSeats),
+                reserveUpdate(fromIndex, toIndex, seats)).getModifiedCount() == 1;
+        evict(rideId);
+        return reserved;
+    }
+
+    /**
+     * Même réservation, dans la transaction de session.
+     * Les caches ne sont PAS vidés ici: l'appelant appelle evict(rideId)
+     * une fois la transaction terminée (validée ou non).
+     */
+    public boolean reserveSeats(ClientSession session, ObjectId rideId, int fromIndex, int toIndex,
+                                int seats, int totalSeats) {
+        return col.updateOne(session, reserveFilter(rideId, fromIndex, toIndex, seats, totalSeats),
+                reserveUpdate(fromIndex, toIndex, seats)).getModifiedCount() == 1;
+    }
+
+    // chaque segment doit pouvoir accueillir "seats" places de plus
+    private static Bson reserveFilter(ObjectId rideId, int fromIndex, int toIndex, int seats, int totalSeats) {
+        List<Bson> filters = new ArrayList<>();
+        filters.add(eq("_id", rideId));
+        for (int seg = fromIndex; seg < toIndex; seg++) {
+            filters.add(lte("seatsUsed." + seg, totalSeats - seats));
+        }
+        return and(filters);
+    }
+
+    private static Document reserveUpdate(int fromIndex, int toIndex, int seats) {
+        Document inc = new Document();
+        for (int seg = fromIndex; seg < toIndex; seg++) {
+            inc.append("seatsUsed." + seg, seats);
+        }
+        return new Document("$inc", inc);
+    }
+
+    /**
+     * Libère des places sur les segments [fromIndex, toIndex[ (opération inverse de reserveSeats).
+     */
+    public void releaseSeats(ObjectId rideId, int fromIndex, int toIndex, int seats) {
+        Document inc = new Document();
+        for (int seg = fromIndex; seg < toIndex; seg++) {
+            inc.append("seatsUsed." + seg, -seats);
+        }
+        col.updateOne(eq("_id", rideId), new Document("$inc", inc));
+        evict(rideId);
+    }
+
+    /**
+     * Initialise le registre seatsUsed d'un ancien trajet qui n'en a pas encore.
+     * Sans effet si un registre existe déjà (initialisation concurrente).
+     */
+    public void initSeatLedger(ObjectId rideId, List<Integer> seatsUsed) {
+        col.updateOne(
+                and(eq("_id", rideId), exists("seatsUsed", false)),
+                new Document("$set", new Document("seatsUsed", seatsUsed)));
+        evict(rideId);
+    }
+
+    /**
+     * Remplace le registre seatsUsed (réconciliation), seulement s'il vaut encore
+     * expected: une réservation passée entre la lecture et l'écriture n'est pas écrasée.
+     *
+     * @return true si le registre a été remplacé
+     */
+    public boolean replaceSeatLedger(ObjectId rideId, List<Integer> expected, List<Integer> seatsUsed) {
+        boolean replaced = col.updateOne(
+                and(eq("_id", rideId), eq("seatsUsed", expected)),
+                new Document("$set", new Document("seatsUsed", seatsUsed))).getModifiedCount() == 1;
+        evict(rideId);
+        return replaced;
+    }
+
+    // Le trajet a changé en base: on le retire des caches (requête, trajets, recherches)
+    public void evict(ObjectId rideId) {
+        RequestCache.evictRide(rideId);
+        rideCache.invalidate(rideId);
+        searchCache.invalidateRide(rideId);
+    }
+
+    // Registre seatsUsed d'un trajet, lu seul (réconciliation)
+    public record SeatLedger(ObjectId rideId, List<Integer> seatsUsed) { }
+
+    /**
+     * Parcourt les registres seatsUsed des trajets à venir (réconciliation), sans cache,
+     * par lots de batchSize: seuls _id et seatsUsed sont lus, et un seul lot est en mémoire.
+     */
+    public void forEachUpcomingSeatLedgerBatch(int batchSize, Consumer<List<SeatLedger>> action) {
+        List<SeatLedger> batch = new ArrayList<>(batchSize);
+        for (Document doc : col.find(and(exists("seatsUsed", true),
+                        gte("departureDateTime", DateTimeUtils.toDate(DateTimeUtils.nowApp()))), Document.class)
+                .projection(new Document("seatsUsed", 1))
+                .batchSize(batchSize)) {
+            batch.add(new SeatLedger(doc.getObjectId("_id"), doc.getList("seatsUsed", Integer.class)));
+            if (batch.size() == batchSize) {
+                action.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            action.accept(batch);
         }
+    }
+
+    // Trajets créés avant l'ajout du registre seatsUsed (pour la migration).
+    public List<Ride> findWithoutSeatLedger() {
+        List<Ride> result = new ArrayList<>();
+        col.find(exists("seatsUsed", false)).into(result);
         return result;
     }
+
+    /**
+     * Migration: renseigne "pathCities" sur les anciens trajets qui ne l'ont pas.
+     * Les mises à jour sont envoyées par lots (bulkWrite).
+     *
+     * @return nombre de trajets mis à jour
+     */
+    public int migratePathCities() {
+        List<WriteModel<Ride>> batch = new ArrayList<>();
+        int updated = 0;
+
+        for (Ride ride : col.find(exists("pathCities", false))) {
+            batch.add(new UpdateOneModel<>(
+                    eq("_id", ride.getId()),
+                    new Document("$set", new Document("pathCities", ride.getNormalizedPath()))));
+
+            if (batch.size() >= MIGRATION_BATCH_SIZE) {
+                updated += col.bulkWrite(batch).getModifiedCount();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            updated += col.bulkWrite(batch).getModifiedCount();
+        }
+        return updated;
+    }
     
 
 
@@ -0,0 +1,225 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.config.AppSettings;
+import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.util.TtlLruCache;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache à durée de vie courte des résultats de recherche (/rides),
+ * clé = (ville de départ normalisée, ville d'arrivée normalisée, date).
+ *
+ * Invalidation:
+ *  - RideDao.insert: toutes les recherches du jour de départ du nouveau trajet
+ *  - changement de places (registre seatsUsed): les recherches qui contiennent ce trajet
+ *
+ * Un index inverse (trajet -> recherches en cache qui le contiennent) évite de parcourir
+ * tout le cache à chaque changement de places. Ses clés devenues absentes du cache
+ * (expirées, évincées) sont nettoyées toutes les maxEntries recherches manquantes.
+ *
+ * Une invalidation peut tomber pendant l'exécution d'une recherche manquante, dont le
+ * résultat est alors peut-être périmé. Chaque invalidation prend un numéro de séquence,
+ * noté pour le trajet (ou la date) concerné; le numéro courant est lu avant la recherche,
+ * et le résultat n'est mis en cache que si ni sa date ni aucun de ses trajets n'a été
+ * invalidé depuis. Une invalidation sur un autre trajet ne gêne donc pas la recherche.
+ * Ces numéros sont oubliés au-delà de MAX_TRACKED trajets / dates: les recherches
+ * commencées avant cet oubli ne sont alors pas mises en cache.
+ *
+ * Les résultats de plus de maxRidesPerEntry trajets ne sont pas gardés
+ * (borne la mémoire utilisée par une entrée).
+ *
+ * Paramètres (voir AppSettings):
+ *  - covoit.searchCache.enabled          (true par défaut)
+ *  - covoit.searchCache.size             nombre maximum de recherches (1000)
+ *  - covoit.searchCache.ttlSeconds       durée de vie d'une entrée (30)
+ *  - covoit.searchCache.maxRidesPerEntry taille maximale d'un résultat gardé (200)
+ */
+public final class RideSearchCache {
+
+    private static final RideSearchCache SHARED = new RideSearchCache(
+            AppSettings.getBoolean("covoit.searchCache.enabled", true),
+            AppSettings.getInt("covoit.searchCache.size", 1000),
+            Duration.ofSeconds(AppSettings.getInt("covoit.searchCache.ttlSeconds", 30)),
+            AppSettings.getInt("covoit.searchCache.maxRidesPerEntry", 200));
+
+    // nombre de trajets / dates dont on garde le numéro de dernière invalidation
+    private static final int MAX_TRACKED = 10_000;
+
+    // clé de recherche: villes déjà normalisées (Ride.normalizeCity)
+    record Key(String fromCity, String toCity, LocalDate date) { }
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final int maxRidesPerEntry;
+    private final TtlLruCache<Key, List<Ride>> cache;
+
+    // trajet -> recherches en cache qui le contiennent (peut garder des clés déjà sorties du cache)
+    private final ConcurrentHashMap<ObjectId, Set<Key>> keysByRide = new ConcurrentHashMap<>();
+    private final AtomicInteger putsSinceSweep = new AtomicInteger();
+    // nettoyages de l'index commencés: une recherche pendant laquelle il y en a eu un n'est pas gardée
+    private final AtomicLong sweeps = new AtomicLong();
+
+    // id de trajet ou date -> numéro de sa dernière invalidation
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<Object, Long> lastInvalidation = new ConcurrentHashMap<>();
+    // recherches commencées avant ce numéro: invalidations oubliées, pas de mise en cache
+    private final AtomicLong forgottenUpTo = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder oversized = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    RideSearchCache(boolean enabled, int maxEntries, Duration ttl, int maxRidesPerEntry) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxRidesPerEntry = maxRidesPerEntry;
+        this.cache = new TtlLruCache<>(maxEntries, ttl);
+    }
+
+    // Instance utilisée par tous les RideDao
+    public static RideSearchCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Résultat en cache, sinon exécution de la recherche (mise en cache si pas trop grande).
+     * La liste renvoyée est non modifiable: elle peut être partagée entre requêtes.
+     */
+    List<Ride> get(Key key, Supplier<List<Ride>> search) {
+        if (!enabled) {
+            return search.get();
+        }
+        List<Ride> rides = cache.get(key);
+        if (rides != null) {
+            hits.increment();
+            return rides;
+        }
+        misses.increment();
+        long stamp = sequence.get();
+        long sweepStamp = sweeps.get();
+        rides = List.copyOf(search.get());
+        if (rides.size() > maxRidesPerEntry) {
+            oversized.increment();
+            return rides;
+        }
+
+        // index AVANT la mise en cache: une invalidation qui suit le contrôle ci-dessous
+        // trouve forcément la clé dans l'index
+        for (Ride r : rides) {
+            if (r.getId() != null) {
+                keysByRide.computeIfAbsent(r.getId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        }
+        // pas de mise en cache si la date ou un de ces trajets a été invalidé pendant la recherche
+        List<Ride> result = rides;
+        cache.putIf(key, rides, () -> sweeps.get() == sweepStamp
+                && !invalidatedSince(stamp, key.date(), result));
+
+        if (putsSinceSweep.incrementAndGet() >= maxEntries) {
+            sweepIndex();
+        }
+        return rides;
+    }
+
+    private boolean invalidatedSince(long stamp, LocalDate date, List<Ride> rides) {
+        if (stamp < forgottenUpTo.get() || lastInvalidation.getOrDefault(date, 0L) > stamp) {
+            return true;
+        }
+        for (Ride r : rides) {
+            if (r.getId() != null && lastInvalidation.getOrDefault(r.getId(), 0L) > stamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // numéro d'invalidation pour un trajet ou une date (noté AVANT de retirer les entrées)
+    private void markInvalidated(Object target) {
+        if (lastInvalidation.size() >= MAX_TRACKED) {
+            // seuil publié AVANT d'oublier: un numéro effacé est toujours <= forgottenUpTo
+            long floor = forgottenUpTo.accumulateAndGet(sequence.get(), Math::max);
+            lastInvalidation.values().removeIf(seq -> seq <= floor);
+        }
+        lastInvalidation.put(target, sequence.incrementAndGet());
+    }
+
+    // Retire de l'index les clés qui ne sont plus dans le cache (expirées, évincées).
+    // sweeps est incrémenté AVANT la copie des clés: une recherche indexée mais pas encore
+    // en cache à ce moment-là échoue son putIf, elle ne peut pas rester en cache sans index.
+    private void sweepIndex() {
+        putsSinceSweep.set(0);
+        sweeps.incrementAndGet();
+        Set<Key> live = cache.keys();
+        keysByRide.values().removeIf(keys -> {
+            keys.retainAll(live);
+            return keys.isEmpty();
+        });
+    }
+
+    // Un trajet a été créé ce jour-là: les recherches de cette date sont périmées
+    void invalidateDate(LocalDate date) {
+        if (enabled && date != null) {
+            markInvalidated(date);
+            invalidations.add(cache.removeIf((key, rides) -> date.equals(key.date())));
+        }
+    }
+
+    // Les places d'un trajet ont changé: on retire les recherches qui le contiennent (index inverse)
+    void invalidateRide(ObjectId rideId) {
+        if (enabled && rideId != null) {
+            markInvalidated(rideId);
+            Set<Key> keys = keysByRide.remove(rideId);
+            if (keys != null) {
+                for (Key key : keys) {
+                    if (cache.remove(key)) {
+                        invalidations.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        // toute recherche en cours a commencé avant ce numéro: elle ne sera pas gardée
+        long floor = forgottenUpTo.accumulateAndGet(sequence.incrementAndGet(), Math::max);
+        cache.clear();
+        keysByRide.clear();
+        lastInvalidation.values().removeIf(seq -> seq <= floor);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // résultats non gardés car plus grands que maxRidesPerEntry
+    public long getOversized() {
+        return oversized.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+}
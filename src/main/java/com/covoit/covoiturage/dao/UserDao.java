@@ -4,48 +4,55 @@ import com.covoit.covoiturage.config.MongoManager;
 import com.covoit.covoiturage.model.User;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
-import org.bson.Document;
+import com.mongodb.client.model.Updates;
 import org.bson.types.ObjectId;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
 
 /**
  * DAO responsable de l'accès à la collection "users" dans MongoDB.
  * Ne contient QUE la logique de persistance (CRUD).
- * Le DAO ne fait que  parler à Mongo et mapper Document <--> User.
+ * Le DAO ne fait que  parler à Mongo; la conversion BSON <--> User
+ * est faite par UserCodec (enregistré dans MongoManager).
  */
 public class UserDao {
 
-    private final MongoCollection<Document> col;
+    private final MongoCollection<User> col;
 
     public UserDao() {
         MongoDatabase db = MongoManager.getDatabase();
-        this.col = db.getCollection("users"); // collection "users"
+        this.col = db.getCollection("users", User.class); // collection "users"
     }
 
-    //Convertit un Document MongoDB en objet User.
-    private User toUser(Document doc) {
-    	if (doc == null) return null;
-    	User u = new User();
-    	u.setId(doc.getObjectId("_id"));
-    	u.setName(doc.getString("name"));
-    	u.setEmail(doc.getString("email"));
-    	u.setPasswordHash(doc.getString("passwordHash"));
-    	return u;
-    }
-
-    //Trouve un utilisateur par son identifiant MongoDB.
+    //Trouve un utilisateur par son identifiant MongoDB (une lecture par requête HTTP, voir RequestCache).
     public User findById(ObjectId id) {
         //Document doc = col.find(eq("email", email)).first();
-        Document doc = col.find(eq("_id", id)).first();
-        return toUser(doc);
+        return RequestCache.user(id, key -> col.find(eq("_id", key)).first());
+    }
+
+    /**
+     * Charge plusieurs utilisateurs en une seule requête ($in sur _id).
+     * @return id -> utilisateur (les ids introuvables sont absents de la map)
+     */
+    public Map<ObjectId, User> findByIds(Collection<ObjectId> ids) {
+        Map<ObjectId, User> result = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        for (User u : col.find(in("_id", ids))) {
+            result.put(u.getId(), u);
+        }
+        return result;
     }
 
     //Trouve un utilisateur par son email.
     public User findByEmail(String email) {
-        Document doc = col.find(eq("email", email)).first();
-        return toUser(doc);
+        return col.find(eq("email", email)).first();
     }
     
     /**
@@ -53,12 +60,13 @@ public class UserDao {
      * L'id généré par MongoDB est réinjecté dans l'objet User.
      */
     public void insert(User user) {
-        Document doc = new Document()
-                .append("name", user.getName())
-                .append("email", user.getEmail())
-                .append("passwordHash", user.getPasswordHash());
+        col.insertOne(user);  // UserCodec renseigne l'id généré dans user
+    }
 
-        col.insertOne(doc);
-        user.setId(doc.getObjectId("_id"));  // récupère l'id généré
+    /**
+     * Remplace le hash du mot de passe (recalcul avec un nouveau coût BCrypt).
+     */
+    public void updatePasswordHash(ObjectId id, String passwordHash) {
+        col.updateOne(eq("_id", id), Updates.set("passwordHash", passwordHash));
     }
 }
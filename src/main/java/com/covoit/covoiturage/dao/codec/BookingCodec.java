@@ -0,0 +1,130 @@
+package com.covoit.covoiturage.dao.codec;
+
+import com.covoit.covoiturage.model.Booking;
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+import static com.covoit.covoiturage.dao.codec.CodecSupport.*;
+
+/**
+ * Codec BSON <-> Booking pour la collection "bookings".
+ *
+ * "createdAt" peut avoir plusieurs formes dans les anciennes réservations:
+ *  - date BSON (cas normal, et LocalDateTime enregistré directement par le driver)
+ *  - chaîne ISO ("2025-01-31T10:15:00")
+ * Les deux sont relues comme le faisait BookingDao.toBooking.
+ */
+public class BookingCodec implements CollectibleCodec<Booking> {
+
+    @Override
+    public Booking decode(BsonReader reader, DecoderContext decoderContext) {
+        Booking b = new Booking();
+        // valeurs par défaut quand le champ est absent (anciennes réservations)
+        b.setFromIndex(-1);
+        b.setToIndex(-1);
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> b.setId(readObjectId(reader));
+                case "rideId" -> b.setRideId(readObjectId(reader));
+                case "passengerId" -> b.setPassengerId(readObjectId(reader));
+                case "seats" -> b.setSeats(readInt(reader, 0));
+                case "ticketCode" -> b.setTicketCode(readString(reader));
+                case "status" -> b.setStatus(readString(reader));
+                case "driverMessage" -> b.setDriverMessage(readString(reader));
+                case "fromCity" -> b.setFromCity(readString(reader));
+                case "toCity" -> b.setToCity(readString(reader));
+                case "fromIndex" -> b.setFromIndex(readInt(reader, -1));
+                case "toIndex" -> b.setToIndex(readInt(reader, -1));
+                case "pricePerSeat" -> b.setPricePerSeat(readInt(reader, 0));
+                case "totalPrice" -> b.setTotalPrice(readInt(reader, 0));
+                case "createdAt" -> b.setCreatedAt(readCreatedAt(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return b;
+    }
+
+    // createdAt: date BSON ou chaîne ISO (voir la javadoc de la classe)
+    static LocalDateTime readCreatedAt(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case DATE_TIME:
+                // même conversion que l'ancien toBooking (fuseau de la JVM)
+                return Instant.ofEpochMilli(reader.readDateTime())
+                        .atZone(ZoneId.systemDefault())
+                        .toLocalDateTime();
+            case STRING:
+                try {
+                    return LocalDateTime.parse(reader.readString());
+                } catch (DateTimeParseException e) {
+                    return null;
+                }
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Booking b, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (b.getId() != null) {
+            writer.writeObjectId("_id", b.getId());
+        }
+        writeObjectId(writer, "rideId", b.getRideId());
+        writeObjectId(writer, "passengerId", b.getPassengerId());
+        writer.writeInt32("seats", b.getSeats());
+        writeAppDateTime(writer, "createdAt", b.getCreatedAt());
+        writeString(writer, "ticketCode", b.getTicketCode());
+        writeString(writer, "status", b.getStatus());
+        writeString(writer, "driverMessage", b.getDriverMessage());
+        // sous-trajet réservé
+        writer.writeInt32("fromIndex", b.getFromIndex());
+        writer.writeInt32("toIndex", b.getToIndex());
+        writeString(writer, "fromCity", b.getFromCity());
+        writeString(writer, "toCity", b.getToCity());
+        writer.writeInt32("pricePerSeat", b.getPricePerSeat());
+        writer.writeInt32("totalPrice", b.getTotalPrice());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<Booking> getEncoderClass() {
+        return Booking.class;
+    }
+
+    @Override
+    public Booking generateIdIfAbsentFromDocument(Booking b) {
+        if (b.getId() == null) {
+            b.setId(new ObjectId());
+        }
+        return b;
+    }
+
+    @Override
+    public boolean documentHasId(Booking b) {
+        return b.getId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(Booking b) {
+        if (b.getId() == null) {
+            throw new IllegalStateException("La réservation n'a pas d'id");
+        }
+        return new BsonObjectId(b.getId());
+    }
+}
@@ -0,0 +1,153 @@
+package com.covoit.covoiturage.dao.codec;
+
+import com.covoit.covoiturage.util.DateTimeUtils;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/*
+ * Lecture / écriture des types simples utilisés par les codecs.
+ * Les lectures tolèrent les valeurs null et les nombres stockés en
+ * long ou double (comme Document.getInteger le ferait... en plus souple).
+ * */
+final class CodecSupport {
+
+    private CodecSupport() {
+        // Constructeur privé
+    }
+
+    static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    static ObjectId readObjectId(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+            return reader.readObjectId();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    /**
+     * Entier, ou defaultValue si la valeur est null ou n'est pas un nombre.
+     */
+    static int readInt(BsonReader reader, int defaultValue) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return (int) reader.readInt64();
+            case DOUBLE:
+                return (int) reader.readDouble();
+            default:
+                reader.skipValue();
+                return defaultValue;
+        }
+    }
+
+    // Date BSON (UTC) -> LocalDateTime dans la zone de l'application
+    static LocalDateTime readAppDateTime(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.DATE_TIME) {
+            return DateTimeUtils.toLocalDateTime(new Date(reader.readDateTime()));
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    static List<String> readStringList(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        List<String> list = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            list.add(readString(reader));
+        }
+        reader.readEndArray();
+        return list;
+    }
+
+    static List<Integer> readIntList(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        List<Integer> list = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                list.add(null);
+            } else {
+                list.add(readInt(reader, 0));
+            }
+        }
+        reader.readEndArray();
+        return list;
+    }
+
+    // --- écriture: une valeur null est écrite comme null BSON (comme Document.append)
+
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeString(name, value);
+        }
+    }
+
+    static void writeObjectId(BsonWriter writer, String name, ObjectId value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeObjectId(name, value);
+        }
+    }
+
+    static void writeAppDateTime(BsonWriter writer, String name, LocalDateTime value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeDateTime(name, DateTimeUtils.toDate(value).getTime());
+        }
+    }
+
+    static void writeStringList(BsonWriter writer, String name, List<String> values) {
+        writer.writeStartArray(name);
+        if (values != null) {
+            for (String v : values) {
+                if (v == null) {
+                    writer.writeNull();
+                } else {
+                    writer.writeString(v);
+                }
+            }
+        }
+        writer.writeEndArray();
+    }
+
+    static void writeIntList(BsonWriter writer, String name, List<Integer> values) {
+        writer.writeStartArray(name);
+        if (values != null) {
+            for (Integer v : values) {
+                if (v == null) {
+                    writer.writeNull();
+                } else {
+                    writer.writeInt32(v);
+                }
+            }
+        }
+        writer.writeEndArray();
+    }
+}
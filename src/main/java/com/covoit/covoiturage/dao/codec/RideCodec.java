@@ -0,0 +1,114 @@
+package com.covoit.covoiturage.dao.codec;
+
+import com.covoit.covoiturage.model.Ride;
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.util.List;
+
+import static com.covoit.covoiturage.dao.codec.CodecSupport.*;
+
+/**
+ * Codec BSON <-> Ride pour la collection "rides".
+ *
+ * Écriture: même document que l'ancien RideDao.insert (villes normalisées,
+ * "pathCities" calculé depuis le chemin complet, registre "seatsUsed").
+ * Lecture: les champs inconnus ("pathCities", champs projetés...) sont ignorés.
+ */
+public class RideCodec implements CollectibleCodec<Ride> {
+
+    @Override
+    public Ride decode(BsonReader reader, DecoderContext decoderContext) {
+        Ride r = new Ride();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> r.setId(readObjectId(reader));
+                case "driverId" -> r.setDriverId(readObjectId(reader));
+                case "departureCity" -> r.setDepartureCity(readString(reader));
+                case "arrivalCity" -> r.setArrivalCity(readString(reader));
+                case "departureDateTime" -> r.setDepartureDateTime(readAppDateTime(reader));
+                case "totalSeats" -> r.setTotalSeats(readInt(reader, 0));
+                case "pricePerSeat" -> r.setPricePerSeat(readInt(reader, 0));
+                case "description" -> r.setDescription(readString(reader));
+                case "stops" -> {
+                    List<String> stops = readStringList(reader);
+                    if (stops != null) {
+                        r.setStops(stops);
+                    }
+                }
+                case "segmentPrices" -> {
+                    List<Integer> prices = readIntList(reader);
+                    if (prices != null) {
+                        r.setSegmentPrices(prices);
+                    }
+                }
+                case "seatsUsed" -> {
+                    List<Integer> used = readIntList(reader);
+                    if (used != null) {
+                        r.setSeatsUsed(used);
+                    }
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return r;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Ride ride, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (ride.getId() != null) {
+            writer.writeObjectId("_id", ride.getId());
+        }
+        writeObjectId(writer, "driverId", ride.getDriverId());
+        // villes stockées normalisées (minuscules)
+        writeString(writer, "departureCity", Ride.normalizeCity(ride.getDepartureCity()));
+        writeString(writer, "arrivalCity", Ride.normalizeCity(ride.getArrivalCity()));
+        writeAppDateTime(writer, "departureDateTime", ride.getDepartureDateTime());
+        writer.writeInt32("totalSeats", ride.getTotalSeats());
+        writer.writeInt32("pricePerSeat", ride.getPricePerSeat());
+        writeString(writer, "description", ride.getDescription());
+        writeStringList(writer, "stops", ride.getStops());
+        // chemin complet normalisé, indexé pour la recherche par ville
+        writeStringList(writer, "pathCities", ride.getNormalizedPath());
+        writeIntList(writer, "seatsUsed", ride.getSeatsUsed());
+        writeIntList(writer, "segmentPrices", ride.getSegmentPrices());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<Ride> getEncoderClass() {
+        return Ride.class;
+    }
+
+    @Override
+    public Ride generateIdIfAbsentFromDocument(Ride ride) {
+        if (ride.getId() == null) {
+            ride.setId(new ObjectId());
+        }
+        return ride;
+    }
+
+    @Override
+    public boolean documentHasId(Ride ride) {
+        return ride.getId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(Ride ride) {
+        if (ride.getId() == null) {
+            throw new IllegalStateException("Le trajet n'a pas d'id");
+        }
+        return new BsonObjectId(ride.getId());
+    }
+}
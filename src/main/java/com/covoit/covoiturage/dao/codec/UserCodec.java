@@ -0,0 +1,79 @@
+package com.covoit.covoiturage.dao.codec;
+
+import com.covoit.covoiturage.model.User;
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import static com.covoit.covoiturage.dao.codec.CodecSupport.*;
+
+/**
+ * Codec BSON <-> User pour la collection "users".
+ * Lit directement le flux BSON, sans passer par un Document intermédiaire.
+ */
+public class UserCodec implements CollectibleCodec<User> {
+
+    @Override
+    public User decode(BsonReader reader, DecoderContext decoderContext) {
+        User u = new User();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> u.setId(readObjectId(reader));
+                case "name" -> u.setName(readString(reader));
+                case "email" -> u.setEmail(readString(reader));
+                case "passwordHash" -> u.setPasswordHash(readString(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return u;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, User u, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (u.getId() != null) {
+            writer.writeObjectId("_id", u.getId());
+        }
+        writeString(writer, "name", u.getName());
+        writeString(writer, "email", u.getEmail());
+        writeString(writer, "passwordHash", u.getPasswordHash());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<User> getEncoderClass() {
+        return User.class;
+    }
+
+    // --- gestion de l'_id (insertOne renseigne l'id généré dans l'objet)
+
+    @Override
+    public User generateIdIfAbsentFromDocument(User u) {
+        if (u.getId() == null) {
+            u.setId(new ObjectId());
+        }
+        return u;
+    }
+
+    @Override
+    public boolean documentHasId(User u) {
+        return u.getId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(User u) {
+        if (u.getId() == null) {
+            throw new IllegalStateException("L'utilisateur n'a pas d'id");
+        }
+        return new BsonObjectId(u.getId());
+    }
+}
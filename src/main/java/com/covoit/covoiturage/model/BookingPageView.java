@@ -0,0 +1,143 @@
+package com.covoit.covoiturage.model;
+
+import java.util.List;
+
+/**
+ * Objet de vue pour la page de réservation (/book).
+ * Il regroupe:
+ *  - le trajet (ride) et son chemin complet
+ *  - les places restantes sur le trajet complet
+ *  - le sous-trajet éventuel du passager (villes, indices, places, prix)
+ *
+ * Les deux disponibilités (trajet complet et sous-trajet) sont calculées
+ * à partir d'un même relevé des places occupées par segment (seatsUsed),
+ * chargé une seule fois par BookingService.
+ */
+public class BookingPageView {
+
+    private Ride ride;
+    private List<String> fullPath;
+    private int remainingSeats;
+
+    // sous-trajet demandé par le passager (null si absent ou incohérent)
+    private Integer segmentFromIndex;
+    private Integer segmentToIndex;
+    private Integer segmentStopsCount;
+    private String segmentFromCity;
+    private String segmentToCity;
+    private Integer segmentRemainingSeats;
+    private Integer segmentUnitPrice;
+    private boolean subRide;
+
+    public BookingPageView() {
+    }
+
+    /**
+     * Construit la vue à partir du trajet et des places occupées par segment.
+     *
+     * @param ride      trajet affiché
+     * @param seatsUsed places occupées sur chaque segment (même taille que fullPath - 1)
+     * @param fromCity  ville de départ demandée (peut être null)
+     * @param toCity    ville d'arrivée demandée (peut être null)
+     */
+    public static BookingPageView of(Ride ride, List<Integer> seatsUsed, String fromCity, String toCity) {
+        BookingPageView view = new BookingPageView();
+        view.ride = ride;
+        view.fullPath = ride.getFullPath();
+
+        int nbSegments = Math.max(0, view.fullPath.size() - 1);
+
+        // places restantes sur le trajet complet: segment le plus chargé
+        view.remainingSeats = remainingSeats(ride, seatsUsed, 0, nbSegments);
+
+        // version "normalisée" du chemin (tout en minuscule), mêmes indices que fullPath
+        List<String> normPath = ride.getNormalizedPath();
+
+        String fromNorm = Ride.normalizeCity(fromCity);
+        String toNorm   = Ride.normalizeCity(toCity);
+
+        int from = (fromNorm == null) ? -1 : normPath.indexOf(fromNorm);
+        int to   = (toNorm == null) ? -1 : normPath.lastIndexOf(toNorm);
+
+        // on vérifie que l'arrivée est bien après le départ, sinon on ignore ce sous-trajet
+        if (from < 0 || to <= from) {
+            return view;
+        }
+
+        view.segmentFromIndex  = from;
+        view.segmentToIndex    = to;
+        view.segmentFromCity   = view.fullPath.get(from);
+        view.segmentToCity     = view.fullPath.get(to);
+        // nombre d'arrêts intermédiaires entre les deux
+        view.segmentStopsCount = to - from - 1;
+        view.subRide = !(from == 0 && to == nbSegments);
+
+        // places restantes sur ce sous-trajet (même relevé que pour le trajet complet)
+        view.segmentRemainingSeats = remainingSeats(ride, seatsUsed, from, to);
+
+        Integer p = ride.getPricePerSeatForSegment(from, to);
+        if (p != null && p > 0) {
+            view.segmentUnitPrice = p;
+        }
+        return view;
+    }
+
+    // totalSeats moins le segment le plus chargé entre fromIndex et toIndex (exclu)
+    private static int remainingSeats(Ride ride, List<Integer> seatsUsed, int fromIndex, int toIndex) {
+        int maxUsed = 0;
+        if (seatsUsed != null) {
+            for (int seg = fromIndex; seg < toIndex && seg < seatsUsed.size(); seg++) {
+                Integer used = seatsUsed.get(seg);
+                if (used != null && used > maxUsed) {
+                    maxUsed = used;
+                }
+            }
+        }
+        return Math.max(0, ride.getTotalSeats() - maxUsed);
+    }
+
+    // ------------- Getters   ----------------------
+    public Ride getRide() {
+        return ride;
+    }
+
+    public List<String> getFullPath() {
+        return fullPath;
+    }
+
+    public int getRemainingSeats() {
+        return remainingSeats;
+    }
+
+    public Integer getSegmentFromIndex() {
+        return segmentFromIndex;
+    }
+
+    public Integer getSegmentToIndex() {
+        return segmentToIndex;
+    }
+
+    public Integer getSegmentStopsCount() {
+        return segmentStopsCount;
+    }
+
+    public String getSegmentFromCity() {
+        return segmentFromCity;
+    }
+
+    public String getSegmentToCity() {
+        return segmentToCity;
+    }
+
+    public Integer getSegmentRemainingSeats() {
+        return segmentRemainingSeats;
+    }
+
+    public Integer getSegmentUnitPrice() {
+        return segmentUnitPrice;
+    }
+
+    public boolean isSubRide() {
+        return subRide;
+    }
+}
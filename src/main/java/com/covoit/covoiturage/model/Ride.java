@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -31,8 +32,21 @@ public class Ride {
     
     // Liste des arrets
     private List<String> stops = new ArrayList<>();
+
+    // Registre des places CONFIRMÉES par segment (même indices que segmentPrices)
+    // seatsUsed.get(0) = places occupées entre ville[0] et ville[1], etc.
+    // Mis à jour de façon atomique en base lors de la confirmation d'une réservation.
+    // Liste non modifiable, remplacée en bloc: l'objet peut être partagé (RideCache).
+    private volatile List<Integer> seatsUsed = List.of();
     
-    private static final DateTimeFormatter DISPLAY_FMT =DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm", Locale.FRENCH);
+    static final DateTimeFormatter DISPLAY_FMT =DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm", Locale.FRENCH);
+
+    // Chemin complet (affichage + normalisé), calculé une seule fois par trajet;
+    // remis à null par setDepartureCity / setArrivalCity / setStops.
+    // Les listes sont non modifiables: l'objet peut être lu par plusieurs threads (RideCache).
+    private Path path;
+
+    private record Path(List<String> display, List<String> normalized) { }
     
     
     //---------------     Getters et setters     ------------------------
@@ -58,6 +72,7 @@ public class Ride {
 
     public void setDepartureCity(String departureCity) {
         this.departureCity = departureCity;
+        this.path = null;
     }
 
     public String getArrivalCity() {
@@ -66,6 +81,7 @@ public class Ride {
 
     public void setArrivalCity(String arrivalCity) {
         this.arrivalCity = arrivalCity;
+        this.path = null;
     }
 
     public LocalDateTime getDepartureDateTime() {
@@ -101,9 +117,9 @@ public class Ride {
     }
 
     
-    // arrets
+    // arrets (non modifiable: passer par setStops, qui recalcule le chemin)
     public List<String> getStops() {
-        return stops;
+        return Collections.unmodifiableList(stops);
     }
 
     public void setStops(List<String> stops) {
@@ -111,8 +127,9 @@ public class Ride {
         if (stops == null) {
             this.stops = new ArrayList<>();
         } else {
-            this.stops = stops;
+            this.stops = new ArrayList<>(stops);
         }
+        this.path = null;
     }
     
     
@@ -122,18 +139,14 @@ public class Ride {
      */
     public List<String> getIntermediateStops() {
         List<String> full = getFullPath();
-        List<String> result = new ArrayList<>();
 
         if (full.size() <= 2) {
             // 0 ou 1 ville -> pas d'arrêt intermédiaire
-            return result;
+            return List.of();
         }
 
         // On prend tout ce qui est entre la 1ère (départ) et la dernière (arrivée)
-        for (int i = 1; i < full.size() - 1; i++) {
-            result.add(full.get(i));
-        }
-        return result;
+        return full.subList(1, full.size() - 1);
     }
 
     
@@ -205,65 +218,74 @@ public class Ride {
      * Retourne la liste complète des villes du trajet, dans l'ordre:
      *   départ -> arrêts intermédiaires -> arrivée
      * en utilisant les noms formatés pour l'affichage.
+     * Liste non modifiable, calculée une fois puis réutilisée.
 	 */
     public List<String> getFullPath() {
-        List<String> path = new ArrayList<>();
+        return path().display();
+    }
+
+    /**
+     * Chemin complet normalisé (minuscules), dans le même ordre que getFullPath().
+     * C'est cette forme qui est stockée en base dans le champ "pathCities"
+     * pour la recherche par ville.
+     */
+    public List<String> getNormalizedPath() {
+        return path().normalized();
+    }
+
+    private Path path() {
+        Path p = path;
+        if (p == null) {
+            p = computePath();
+            path = p;
+        }
+        return p;
+    }
+
+    // Construit les deux formes du chemin en un seul passage (une normalisation par ville)
+    private Path computePath() {
+        List<String> display = new ArrayList<>(stops.size() + 2);
+        List<String> normalized = new ArrayList<>(stops.size() + 2);
 
         String depNorm = normalizeCity(departureCity);
         String arrNorm = normalizeCity(arrivalCity);
 
         // On part de la liste des stops
-        if (stops != null) {
-            for (String s : stops) {
-                String norm = normalizeCity(s);
-                if (norm == null) continue;
-
-                String formatted = formatCityName(s);
-
-                // On évite les doublons consécutifs
-                if (!path.isEmpty()
-                        && path.get(path.size() - 1).equalsIgnoreCase(formatted)) {
-                    continue;
-                }
+        for (String s : stops) {
+            String norm = normalizeCity(s);
+            if (norm == null) continue;
 
-                path.add(formatted);
+            // On évite les doublons consécutifs
+            if (!normalized.isEmpty() && normalized.get(normalized.size() - 1).equals(norm)) {
+                continue;
             }
+
+            display.add(formatCityName(s));
+            normalized.add(norm);
         }
 
         // On s'assure que la 1ère ville est bien la ville de départ.
-        if (depNorm != null) {
-            if (path.isEmpty()) {
-                path.add(formatCityName(departureCity));
-            } else {
-                String firstNorm = normalizeCity(path.get(0));
-                if (!depNorm.equals(firstNorm)) {
-                    path.add(0, formatCityName(departureCity));
-                }
-            }
+        if (depNorm != null && (normalized.isEmpty() || !depNorm.equals(normalized.get(0)))) {
+            display.add(0, formatCityName(departureCity));
+            normalized.add(0, depNorm);
         }
 
         // On s'assure que la dernière ville est bien la ville d'arrivée.
-        if (arrNorm != null) {
-            if (path.isEmpty()) {
-                path.add(formatCityName(arrivalCity));
-            } else {
-                String lastNorm = normalizeCity(path.get(path.size() - 1));
-                if (!arrNorm.equals(lastNorm)) {
-                    path.add(formatCityName(arrivalCity));
-                }
-            }
+        if (arrNorm != null && (normalized.isEmpty() || !arrNorm.equals(normalized.get(normalized.size() - 1)))) {
+            display.add(formatCityName(arrivalCity));
+            normalized.add(arrNorm);
         }
 
-        return path;
+        return new Path(List.copyOf(display), List.copyOf(normalized));
     }
-  
-    
+
+
     /**
      * Normalisation du nom de ville :
      *  - trim
      *  - Première lettre en majuscule, le reste en minuscule.
      */
-    private String formatCityName(String city) {
+    static String formatCityName(String city) {
         if (city == null) return "";
         String c = city.trim();
         if (c.isEmpty()) return "";
@@ -280,20 +302,33 @@ public class Ride {
     }
     
     
+    /**
+     * Indices {fromIndex, toIndex} du sous-trajet entre deux villes, dans getFullPath().
+     * Même règle que la recherche: première occurrence du départ, dernière de l'arrivée.
+     * Une ville null ou vide signifie début (ou fin) du trajet.
+     *
+     * @return null si le trajet ne passe pas par ces villes dans cet ordre
+     */
+    public int[] findSubRideIndices(String fromCity, String toCity) {
+        List<String> path = getNormalizedPath();
+        String fromNorm = normalizeCity(fromCity);
+        String toNorm   = normalizeCity(toCity);
+
+        int fromIndex = (fromNorm != null) ? path.indexOf(fromNorm) : 0;
+        int toIndex   = (toNorm != null) ? path.lastIndexOf(toNorm) : path.size() - 1;
+
+        if (fromIndex < 0 || toIndex <= fromIndex) {
+            return null;
+        }
+        return new int[] { fromIndex, toIndex };
+    }
+
     // helper pour retrouver l'index d'une ville dans le chemin complet
     public int indexOfCityInFullPath(String city) {
-        if (city == null) 
-        	return -1;
         String target = normalizeCity(city);
-
-        java.util.List<String> path = getFullPath();
-        for (int i = 0; i < path.size(); i++) {
-            String c = path.get(i);
-            if (normalizeCity(c) != null && normalizeCity(c).equals(target)) {
-                return i;
-            }
-        }
-        return -1;
+        if (target == null) 
+        	return -1;
+        return getNormalizedPath().indexOf(target);
     }
     
  // -------------------------------------------------------------------
@@ -385,6 +420,60 @@ public class Ride {
         return total;
     }
 
+    // -------------------------------------------------------------------
+    // PLACES OCCUPÉES PAR SEGMENT
+    // -------------------------------------------------------------------
+
+    public List<Integer> getSeatsUsed() {
+        return seatsUsed;
+    }
+
+    public void setSeatsUsed(List<Integer> seatsUsed) {
+        if (seatsUsed == null) {
+            this.seatsUsed = List.of();
+        } else {
+            this.seatsUsed = Collections.unmodifiableList(new ArrayList<>(seatsUsed));
+        }
+    }
+
+    /**
+     * Indique si le registre seatsUsed est utilisable:
+     * une valeur par tronçon du chemin complet.
+     * Les anciens trajets (avant l'ajout du registre) n'en ont pas.
+     */
+    public boolean hasSeatLedger() {
+        int nbSegments = getFullPath().size() - 1;
+        List<Integer> used = seatsUsed;
+        return nbSegments > 0 && used != null && used.size() == nbSegments;
+    }
+
+    /**
+     * Places restantes sur le sous-trajet [fromIndex, toIndex] d'après le registre
+     * seatsUsed: on regarde le segment le plus chargé.
+     *
+     * @return null si le registre est absent ou si les indices sont invalides
+     */
+    public Integer getRemainingSeatsFromLedger(int fromIndex, int toIndex) {
+        // une seule lecture du champ: setSeatsUsed peut le remplacer entre-temps
+        List<Integer> ledger = seatsUsed;
+        int nbSegments = getFullPath().size() - 1;
+        if (nbSegments <= 0 || ledger.size() != nbSegments) {
+            return null;
+        }
+        if (fromIndex < 0 || toIndex <= fromIndex || toIndex > ledger.size()) {
+            return null;
+        }
+
+        int maxUsed = 0;
+        for (int seg = fromIndex; seg < toIndex; seg++) {
+            Integer used = ledger.get(seg);
+            if (used != null && used > maxUsed) {
+                maxUsed = used;
+            }
+        }
+        return Math.max(totalSeats - maxUsed, 0);
+    }
+
     // 
     public int computeUnitPriceForSegment(int fromIndex, int toIndex) {
         Integer p = getPricePerSeatForSegment(fromIndex, toIndex);
@@ -0,0 +1,26 @@
+package com.covoit.covoiturage.model;
+
+import java.util.List;
+
+/**
+ * Une page de trajets (liste /rides sans recherche) et le curseur
+ * de la page suivante (null s'il n'y en a pas).
+ */
+public class RidePage {
+
+    private final List<Ride> rides;
+    private final String nextCursor;
+
+    public RidePage(List<Ride> rides, String nextCursor) {
+        this.rides = rides;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Ride> getRides() {
+        return rides;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,137 @@
+package com.covoit.covoiturage.model;
+
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Version allégée d'un trajet pour les cartes de la page d'accueil.
+ * Lue avec une projection MongoDB: seulement les champs affichés,
+ * et un extrait de la description au lieu du texte complet.
+ *
+ * Les getters portent les mêmes noms que dans Ride, la JSP n'a pas à changer.
+ */
+public class RideSummary {
+
+    // longueur max de l'extrait de description (en caractères)
+    public static final int DESCRIPTION_EXCERPT_LENGTH = 160;
+
+    private ObjectId id;
+    private String departureCity;
+    private String arrivalCity;
+    private LocalDateTime departureDateTime;
+    private int totalSeats;
+    private int pricePerSeat;
+    private String descriptionExcerpt;
+    private boolean descriptionTruncated;
+    // chemin complet normalisé ("pathCities" en base)
+    private List<String> pathCities = new ArrayList<>();
+
+    public ObjectId getId() {
+        return id;
+    }
+
+    public void setId(ObjectId id) {
+        this.id = id;
+    }
+
+    public String getDepartureCity() {
+        return departureCity;
+    }
+
+    public void setDepartureCity(String departureCity) {
+        this.departureCity = departureCity;
+    }
+
+    public String getArrivalCity() {
+        return arrivalCity;
+    }
+
+    public void setArrivalCity(String arrivalCity) {
+        this.arrivalCity = arrivalCity;
+    }
+
+    public LocalDateTime getDepartureDateTime() {
+        return departureDateTime;
+    }
+
+    public void setDepartureDateTime(LocalDateTime departureDateTime) {
+        this.departureDateTime = departureDateTime;
+    }
+
+    public int getTotalSeats() {
+        return totalSeats;
+    }
+
+    public void setTotalSeats(int totalSeats) {
+        this.totalSeats = totalSeats;
+    }
+
+    public int getPricePerSeat() {
+        return pricePerSeat;
+    }
+
+    public void setPricePerSeat(int pricePerSeat) {
+        this.pricePerSeat = pricePerSeat;
+    }
+
+    public void setDescriptionExcerpt(String descriptionExcerpt) {
+        this.descriptionExcerpt = descriptionExcerpt;
+    }
+
+    public void setDescriptionTruncated(boolean descriptionTruncated) {
+        this.descriptionTruncated = descriptionTruncated;
+    }
+
+    public List<String> getPathCities() {
+        return pathCities;
+    }
+
+    public void setPathCities(List<String> pathCities) {
+        this.pathCities = (pathCities != null) ? pathCities : new ArrayList<>();
+    }
+
+    // --- Helpers d'affichage (mêmes règles que Ride) ---------------
+
+    /**
+     * Extrait de la description, avec "…" s'il a été coupé.
+     */
+    public String getDescription() {
+        if (descriptionExcerpt == null || descriptionExcerpt.isBlank()) {
+            return null;
+        }
+        return descriptionTruncated ? descriptionExcerpt + "…" : descriptionExcerpt;
+    }
+
+    public String getDepartureDateTimeFormatted() {
+        if (departureDateTime == null) return "";
+        return departureDateTime.format(Ride.DISPLAY_FMT);
+    }
+
+    public String getDepartureCityDisplay() {
+        return Ride.formatCityName(departureCity);
+    }
+
+    public String getArrivalCityDisplay() {
+        return Ride.formatCityName(arrivalCity);
+    }
+
+    /**
+     * Itinéraire complet "Paris -> Poitiers -> Madrid".
+     * Sans pathCities (ancien trajet pas encore migré), on affiche départ et arrivée.
+     */
+    public String getStopsDisplay() {
+        List<String> full = new ArrayList<>();
+        if (pathCities.isEmpty()) {
+            full.add(getDepartureCityDisplay());
+            full.add(getArrivalCityDisplay());
+        } else {
+            for (String city : pathCities) {
+                full.add(Ride.formatCityName(city));
+            }
+        }
+        return String.join(" -> ", full);
+    }
+}
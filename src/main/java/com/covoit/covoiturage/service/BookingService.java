@@ -1,15 +1,35 @@
 package com.covoit.covoiturage.service;
 
+import com.covoit.covoiturage.config.AppSettings;
+import com.covoit.covoiturage.config.MongoManager;
+import com.covoit.covoiturage.dao.AsyncBookingDao;
+import com.covoit.covoiturage.dao.AsyncRideDao;
 import com.covoit.covoiturage.dao.BookingDao;
+import com.covoit.covoiturage.dao.DaoExecutor;
 import com.covoit.covoiturage.dao.RideDao;
+import com.covoit.covoiturage.dao.UserDao;
 import com.covoit.covoiturage.model.Booking;
+import com.covoit.covoiturage.model.BookingPageView;
+import com.covoit.covoiturage.model.BookingWithRide;
+import com.covoit.covoiturage.model.DriverBookingView;
 import com.covoit.covoiturage.model.Ride;
 import com.covoit.covoiturage.model.User;
 import com.covoit.covoiturage.util.BusinessException;
+import com.covoit.covoiturage.util.StripedLocks;
+import com.mongodb.client.ClientSession;
 import org.bson.types.ObjectId;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Permet l'accès Mongo (collection bookings)
@@ -22,8 +42,19 @@ import java.util.List;
  */
 public class BookingService {
 
+    // Verrous par trajet (partagés par toutes les instances du service):
+    // création, confirmation et refus sur un même trajet passent l'un après l'autre.
+    private static final StripedLocks RIDE_LOCKS =
+            new StripedLocks(AppSettings.getInt("covoit.rideLocks.stripes", 64));
+
+    // trajets par agrégation sur bookings, pour la réconciliation des registres
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
     private final BookingDao bookingDao = new BookingDao();
     private final RideDao rideDao = new RideDao();
+    private final UserDao userDao = new UserDao();
+    private final AsyncBookingDao asyncBookingDao = new AsyncBookingDao(bookingDao);
+    private final AsyncRideDao asyncRideDao = new AsyncRideDao(rideDao);
 
     /**
      * Réserve un trajet pour un passager.
@@ -114,19 +145,137 @@ public class BookingService {
     }
 
     /**
-     * Nombre de places restantes sur l'ensemble du trajet.
-     * On prend le minimum de places disponible sur tous les segments.
+     * Page de l'historique des réservations d'un passager, jointe à ses trajets.
+     *
+     * Deux requêtes quelle que soit la longueur de l'historique:
+     *  1. les réservations (paginées, filtre "à venir" fait dans Mongo)
+     *  2. les trajets correspondants ($in), associés via une map
      */
-    public int getRemainingSeats(Ride ride) {
-        if (ride == null || ride.getId() == null) {
-            return 0;
+    public List<BookingWithRide> getBookingsWithRideForUser(User passenger, boolean upcomingOnly,
+                                                            int offset, int limit) throws BusinessException {
+        if (passenger == null || passenger.getId() == null) {
+            throw new BusinessException("Utilisateur non connecté.");
         }
 
-        // On ne compte que les réservations CONFIRMÉES
-        int already = bookingDao.countConfirmedSeatsForRide(ride.getId());
+        List<Booking> bookings = bookingDao.findByPassengerId(passenger.getId(), upcomingOnly, offset, limit);
 
-        int remaining = ride.getTotalSeats() - already;
-        return Math.max(0, remaining);
+        Set<ObjectId> rideIds = new HashSet<>();
+        for (Booking b : bookings) {
+            rideIds.add(b.getRideId());
+        }
+        Map<ObjectId, Ride> rides = rideDao.findByIds(rideIds);
+
+        List<BookingWithRide> result = new ArrayList<>();
+        for (Booking b : bookings) {
+            BookingWithRide bwr = new BookingWithRide();
+            bwr.setBooking(b);
+            bwr.setRide(rides.get(b.getRideId()));
+            result.add(bwr);
+        }
+        return result;
+    }
+
+    /**
+     * Demandes de réservation reçues par un conducteur sur ses trajets
+     * (asynchrone: les requêtes s'enchaînent sans bloquer le thread appelant).
+     *
+     * Nombre de requêtes constant quel que soit le nombre de trajets/réservations:
+     *  1. les trajets du conducteur
+     *  2. les réservations de ces trajets ($in, triées PENDING d'abord, paginées)
+     *  3. les passagers de ces réservations ($in)
+     *
+     * @param status filtre optionnel sur le statut (null = tous)
+     * @param offset nombre de demandes à sauter (pagination)
+     * @param limit  nombre maximum de demandes renvoyées
+     */
+    public CompletionStage<List<DriverBookingView>> getDriverBookingsAsync(User driver, String status,
+                                                                        int offset, int limit) {
+        if (driver == null || driver.getId() == null) {
+            return CompletableFuture.failedFuture(new BusinessException("Utilisateur conducteur invalide."));
+        }
+
+        return asyncRideDao.findByDriverId(driver.getId()).thenCompose(rides -> {
+            Map<ObjectId, Ride> ridesById = new HashMap<>();
+            for (Ride ride : rides) {
+                ridesById.put(ride.getId(), ride);
+            }
+
+            return asyncBookingDao.findByRideIds(ridesById.keySet(), status, offset, limit)
+                    .thenCompose(bookings -> {
+                        Set<ObjectId> passengerIds = new HashSet<>();
+                        for (Booking b : bookings) {
+                            passengerIds.add(b.getPassengerId());
+                        }
+
+                        return DaoExecutor.supply(() -> userDao.findByIds(passengerIds))
+                                .thenApply(passengers -> {
+                                    List<DriverBookingView> views = new ArrayList<>();
+                                    for (Booking b : bookings) {
+                                        views.add(new DriverBookingView(b,
+                                                ridesById.get(b.getRideId()),
+                                                passengers.get(b.getPassengerId())));
+                                    }
+                                    return views;
+                                });
+                    });
+        });
+    }
+
+    /**
+     * Vue de la page de réservation: trajet, places restantes sur le trajet complet
+     * et sur le sous-trajet fromCity -> toCity (s'il est valide).
+     *
+     * Les réservations du trajet ne sont lues qu'une fois: les deux disponibilités
+     * sont dérivées du même relevé seatsUsed (registre du trajet s'il existe,
+     * sinon une seule agrégation projetée sur bookings).
+     */
+    public BookingPageView getBookingPage(String rideIdStr, String fromCity,
+                                          String toCity) throws BusinessException {
+        ObjectId rideId = parseRideId(rideIdStr);
+
+        Ride ride = rideDao.findById(rideId);
+        if (ride == null) {
+            throw new BusinessException("Trajet introuvable.");
+        }
+
+        List<Integer> used = ride.hasSeatLedger() ? ride.getSeatsUsed() : computeSeatsUsed(ride);
+        return BookingPageView.of(ride, used, fromCity, toCity);
+    }
+
+    // Comme getBookingPage, sans bloquer l'appelant.
+    public CompletionStage<BookingPageView> getBookingPageAsync(String rideIdStr, String fromCity, String toCity) {
+        ObjectId rideId;
+        try {
+            rideId = parseRideId(rideIdStr);
+        } catch (BusinessException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return asyncRideDao.findById(rideId).thenCompose(ride -> {
+            if (ride == null) {
+                return CompletableFuture.failedFuture(new BusinessException("Trajet introuvable."));
+            }
+            if (ride.hasSeatLedger()) {
+                // registre présent: aucune requête sur bookings
+                return CompletableFuture.completedFuture(
+                        BookingPageView.of(ride, ride.getSeatsUsed(), fromCity, toCity));
+            }
+            return asyncBookingDao.findConfirmedByRideIds(List.of(rideId))
+                    .thenApply(confirmedByRide -> BookingPageView.of(ride,
+                            computeSeatsUsed(ride, confirmedByRide.getOrDefault(rideId, List.of())),
+                            fromCity, toCity));
+        });
+    }
+
+    private static ObjectId parseRideId(String rideIdStr) throws BusinessException {
+        if (rideIdStr == null || rideIdStr.isBlank()) {
+            throw new BusinessException("Identifiant de trajet manquant.");
+        }
+        try {
+            return new ObjectId(rideIdStr);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Identifiant de trajet invalide.");
+        }
     }
     
     
@@ -150,6 +299,16 @@ public class BookingService {
             throw new BusinessException("Réservation introuvable.");
         }
 
+        Lock lock = RIDE_LOCKS.acquire(booking.getRideId());
+        try {
+            confirmLocked(driver, booking, message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // confirmation, sous le verrou du trajet
+    private void confirmLocked(User driver, Booking booking, String message) throws BusinessException {
         // Vérifier que le driver est bien le conducteur du trajet
         Ride ride = rideDao.findById(booking.getRideId());
         if (ride == null || ride.getDriverId() == null || !ride.getDriverId().equals(driver.getId())) {
@@ -174,16 +333,11 @@ public class BookingService {
 	         fromIndex = 0;
 	         toIndex   = nbSegments;
 	     }
-	
-	     // Places encore libres sur ce sous-trajet (en ne comptant que les autres CONFIRMED)
-	     int remainingOnSegment = getRemainingSeatsForSegment(ride, fromIndex, toIndex);
-	
-	     if (booking.getSeats() > remainingOnSegment) {
-	         throw new BusinessException(
-	             "Il ne reste plus assez de places pour confirmer cette réservation."
-	         );
+	     if (nbSegments < 1) {
+	         throw new BusinessException("Trajet invalide (pas assez d'étapes ou d'arret).");
 	     }
-
+	
+	     ensureSeatLedger(ride);
 
         // Génération du ticketCode à la confirmation
         String ticketCode = "T-" + System.currentTimeMillis() + "-" + booking.getId();
@@ -192,7 +346,69 @@ public class BookingService {
                 ? "Votre réservation est confirmée. Merci d'être à l'heure."
                 : message.trim();
 
-        bookingDao.updateBooking(bookingId, "CONFIRMED", msg, ticketCode);
+        // Replica set: places et statut dans une seule transaction (tout ou rien)
+        if (MongoManager.supportsTransactions()) {
+            confirmInTransaction(ride, booking, fromIndex, toIndex, msg, ticketCode);
+            return;
+        }
+
+	     // Réservation atomique des places sur le registre seatsUsed du trajet:
+	     // le contrôle et la mise à jour se font dans une seule requête Mongo.
+	     if (!rideDao.reserveSeats(ride.getId(), fromIndex, toIndex,
+	             booking.getSeats(), ride.getTotalSeats())) {
+	         throw new BusinessException(
+	             "Il ne reste plus assez de places pour confirmer cette réservation."
+	         );
+	     }
+
+        // Passage PENDING -> CONFIRMED en compare-and-set: si une autre décision
+        // (confirmation en double, refus) est passée entre-temps, on rend les places.
+        // Si l'application s'arrête entre les deux écritures, les places restent prises:
+        // reconcileSeatLedgers() les rend au démarrage suivant.
+        boolean confirmed;
+        try {
+            confirmed = bookingDao.updateBookingIfStatus(booking.getId(), "PENDING", "CONFIRMED", msg, ticketCode);
+        } catch (RuntimeException e) {
+            // la réservation n'a pas pu être confirmée: on rend les places
+            rideDao.releaseSeats(ride.getId(), fromIndex, toIndex, booking.getSeats());
+            throw e;
+        }
+        if (!confirmed) {
+            rideDao.releaseSeats(ride.getId(), fromIndex, toIndex, booking.getSeats());
+            throw new BusinessException("Cette réservation n'est plus en attente.");
+        }
+    }
+
+    /**
+     * Réservation des places et passage PENDING -> CONFIRMED dans la même transaction:
+     * en cas d'échec (plus de places, statut déjà changé, panne), aucune des deux
+     * écritures n'est gardée, il n'y a pas de places à rendre.
+     * withTransaction rejoue le tout sur les erreurs transitoires (conflit d'écriture...).
+     */
+    private void confirmInTransaction(Ride ride, Booking booking, int fromIndex, int toIndex,
+                                      String msg, String ticketCode) throws BusinessException {
+        String refusal;
+        try (ClientSession session = MongoManager.getClient().startSession()) {
+            refusal = session.withTransaction(() -> {
+                if (!rideDao.reserveSeats(session, ride.getId(), fromIndex, toIndex,
+                        booking.getSeats(), ride.getTotalSeats())) {
+                    session.abortTransaction();
+                    return "Il ne reste plus assez de places pour confirmer cette réservation.";
+                }
+                if (!bookingDao.updateBookingIfStatus(session, booking.getId(), "PENDING", "CONFIRMED",
+                        msg, ticketCode)) {
+                    session.abortTransaction();
+                    return "Cette réservation n'est plus en attente.";
+                }
+                return null;
+            });
+        } finally {
+            // registre modifié (ou pas): les caches sont vidés après la transaction
+            rideDao.evict(ride.getId());
+        }
+        if (refusal != null) {
+            throw new BusinessException(refusal);
+        }
     }
     
     
@@ -214,6 +430,16 @@ public class BookingService {
             throw new BusinessException("Réservation introuvable.");
         }
 
+        Lock lock = RIDE_LOCKS.acquire(booking.getRideId());
+        try {
+            rejectLocked(driver, booking, message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // refus, sous le verrou du trajet
+    private void rejectLocked(User driver, Booking booking, String message) throws BusinessException {
         Ride ride = rideDao.findById(booking.getRideId());
         if (ride == null || ride.getDriverId() == null || !ride.getDriverId().equals(driver.getId())) {
             throw new BusinessException("Vous ne pouvez pas refuser cette réservation.");
@@ -227,7 +453,10 @@ public class BookingService {
                 ? "Votre réservation a été refusée."
                 : message.trim();
 
-        bookingDao.updateBooking(bookingId, "REJECTED", msg, null);
+        // compare-and-set: ne remplace pas une confirmation arrivée entre-temps
+        if (!bookingDao.updateBookingIfStatus(booking.getId(), "PENDING", "REJECTED", msg, null)) {
+            throw new BusinessException("Cette réservation n'est plus en attente.");
+        }
     }
     
     
@@ -263,17 +492,128 @@ public class BookingService {
             throw new BusinessException("Sous-trajet invalide.");
         }
 
-        // used[seg] = nb de places occupées sur le segment seg
-        int[] used = new int[nbSegments];
+        // Registre seatsUsed stocké sur le trajet: lecture directe, sans requête
+        Integer fromLedger = ride.getRemainingSeatsFromLedger(fromIndex, toIndex);
+        if (fromLedger != null) {
+            return fromLedger;
+        }
 
-        // Récupère toutes les réservations de ce trajet
-        List<Booking> allBookings = bookingDao.findByRideId(ride.getId());
+        // Anciens trajets sans registre: on recalcule à partir des réservations
+        List<Integer> used = computeSeatsUsed(ride);
 
-        for (Booking b : allBookings) {
-            String st = b.getStatus();
+        // Sur le sous-trajet demandé, on regarde le segment le plus chargé
+        int maxUsed = 0;
+        for (int seg = fromIndex; seg < toIndex; seg++) {
+            if (used.get(seg) > maxUsed) {
+                maxUsed = used.get(seg);
+            }
+        }
+
+        int remaining = ride.getTotalSeats() - maxUsed;
+        return Math.max(remaining, 0);
+    }
+
+    /**
+     * Places restantes pour une liste de trajets (page de résultats de recherche),
+     * sur le sous-trajet fromCity -> toCity de chacun (trajet complet si villes vides).
+     *
+     * Les trajets ayant un registre seatsUsed sont calculés sans requête;
+     * pour les autres, UNE seule agrégation sur bookings regroupée par rideId.
+     *
+     * @return rideId -> places restantes (0 si le trajet ne passe pas par ces villes)
+     */
+    public Map<ObjectId, Integer> getRemainingSeatsForRides(Collection<Ride> rides,
+                                                            String fromCity,
+                                                            String toCity) {
+        if (rides == null || rides.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        // trajets sans registre: on charge leurs réservations en une fois
+        Map<ObjectId, List<Booking>> confirmedByRide = bookingDao.findConfirmedByRideIds(legacyRideIds(rides));
+        return remainingSeatsFor(rides, fromCity, toCity, confirmedByRide);
+    }
+
+    // Comme getRemainingSeatsForRides, sans bloquer l'appelant.
+    public CompletionStage<Map<ObjectId, Integer>> getRemainingSeatsForRidesAsync(Collection<Ride> rides,
+                                                                                   String fromCity,
+                                                                                   String toCity) {
+        if (rides == null || rides.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        List<ObjectId> legacyIds = legacyRideIds(rides);
+        if (legacyIds.isEmpty()) {
+            // tous les trajets ont un registre: aucune requête à faire
+            return CompletableFuture.completedFuture(remainingSeatsFor(rides, fromCity, toCity, Map.of()));
+        }
+        return asyncBookingDao.findConfirmedByRideIds(legacyIds)
+                .thenApply(confirmedByRide -> remainingSeatsFor(rides, fromCity, toCity, confirmedByRide));
+    }
+
+    // ids des trajets sans registre seatsUsed
+    private static List<ObjectId> legacyRideIds(Collection<Ride> rides) {
+        List<ObjectId> legacyIds = new ArrayList<>();
+        for (Ride ride : rides) {
+            if (ride != null && ride.getId() != null && !ride.hasSeatLedger()) {
+                legacyIds.add(ride.getId());
+            }
+        }
+        return legacyIds;
+    }
+
+    // Calcul des places restantes une fois les réservations des anciens trajets chargées
+    private static Map<ObjectId, Integer> remainingSeatsFor(Collection<Ride> rides, String fromCity, String toCity,
+                                                            Map<ObjectId, List<Booking>> confirmedByRide) {
+        Map<ObjectId, Integer> result = new HashMap<>();
+        for (Ride ride : rides) {
+            if (ride == null || ride.getId() == null) continue;
+
+            int[] sub = ride.findSubRideIndices(fromCity, toCity);
+            if (sub == null) {
+                result.put(ride.getId(), 0);
+                continue;
+            }
+
+            Integer remaining = ride.getRemainingSeatsFromLedger(sub[0], sub[1]);
+            if (remaining == null) {
+                List<Integer> used = computeSeatsUsed(ride,
+                        confirmedByRide.getOrDefault(ride.getId(), List.of()));
+                int maxUsed = 0;
+                for (int seg = sub[0]; seg < sub[1]; seg++) {
+                    maxUsed = Math.max(maxUsed, used.get(seg));
+                }
+                remaining = Math.max(ride.getTotalSeats() - maxUsed, 0);
+            }
+            result.put(ride.getId(), remaining);
+        }
+        return result;
+    }
+
+    /**
+     * Recalcule les places occupées par segment à partir des réservations
+     * CONFIRMÉES du trajet (une requête sur la collection bookings).
+     * Sert pour les anciens trajets qui n'ont pas encore de registre seatsUsed.
+     */
+    private List<Integer> computeSeatsUsed(Ride ride) {
+        // lecture projetée: seulement fromIndex / toIndex / seats des réservations confirmées
+        List<Booking> confirmed = bookingDao.findConfirmedByRideIds(List.of(ride.getId()))
+                .getOrDefault(ride.getId(), List.of());
+        return computeSeatsUsed(ride, confirmed);
+    }
+
+    // Même calcul, à partir d'une liste de réservations déjà chargée.
+    private static List<Integer> computeSeatsUsed(Ride ride, List<Booking> bookings) {
+        return computeSeatsUsed(Math.max(0, ride.getFullPath().size() - 1), bookings);
+    }
 
+    // Même calcul quand seul le nombre de segments est connu (registre lu seul)
+    private static List<Integer> computeSeatsUsed(int nbSegments, List<Booking> bookings) {
+        // used[seg] = nb de places occupées sur le segment seg
+        int[] used = new int[nbSegments];
+
+        for (Booking b : bookings) {
             // On ne compte que les réservations déjà CONFIRMÉES
-            if (!"CONFIRMED".equalsIgnoreCase(st)) {
+            if (!"CONFIRMED".equalsIgnoreCase(b.getStatus())) {
                 continue;
             }
 
@@ -289,16 +629,102 @@ public class BookingService {
             }
         }
 
-        // Sur le sous-trajet demandé, on regarde le segment le plus chargé
-        int maxUsed = 0;
-        for (int seg = fromIndex; seg < toIndex; seg++) {
-            if (used[seg] > maxUsed) {
-                maxUsed = used[seg];
-            }
+        List<Integer> result = new ArrayList<>(nbSegments);
+        for (int u : used) {
+            result.add(u);
         }
+        return result;
+    }
 
-        int remaining = ride.getTotalSeats() - maxUsed;
-        return Math.max(remaining, 0);
+    /**
+     * S'assure que le trajet possède un registre seatsUsed en base
+     * (initialisé à partir des réservations confirmées pour les anciens trajets).
+     * L'objet ride n'est pas modifié: il peut être partagé par RideCache.
+     * Pour lire le registre, relire le trajet ensuite (initSeatLedger l'a retiré des caches).
+     */
+    private void ensureSeatLedger(Ride ride) {
+        if (ride.hasSeatLedger()) {
+            return;
+        }
+        rideDao.initSeatLedger(ride.getId(), computeSeatsUsed(ride));
+    }
+
+    /**
+     * Migration: crée le registre seatsUsed de tous les anciens trajets.
+     *
+     * @return nombre de trajets migrés
+     */
+    public int migrateSeatLedgers() {
+        int count = 0;
+        for (Ride ride : rideDao.findWithoutSeatLedger()) {
+            ensureSeatLedger(ride);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Réconciliation: recalcule le registre seatsUsed des trajets à venir à partir
+     * des réservations CONFIRMÉES, et corrige ceux qui ne correspondent plus.
+     * Sans transaction (MongoDB autonome), une confirmation interrompue entre
+     * reserveSeats et le passage en CONFIRMED (arrêt de l'application, panne réseau)
+     * laisse des places prises pour rien: elles sont rendues ici.
+     *
+     * Un premier calcul groupé, par lots de RECONCILE_BATCH_SIZE trajets dont seul le
+     * registre est lu, repère les écarts. Pour chacun, sous le verrou du trajet,
+     * le registre est relu avant les réservations, puis remplacé seulement s'il n'a pas
+     * changé entre-temps (replaceSeatLedger): une confirmation qui passe pendant le calcul
+     * fait échouer la mise à jour au lieu d'être effacée. Le verrou écarte les
+     * confirmations de cette instance; sans transactions, une confirmation à moitié faite
+     * sur une AUTRE instance serait vue comme une fuite et ses places effacées:
+     * StartupListener ne l'appelle que sur un replica set, ou sur demande explicite
+     * (covoit.seatLedger.reconcileStandalone) pour une instance unique.
+     *
+     * @return nombre de trajets corrigés
+     */
+    public int reconcileSeatLedgers() {
+        int[] fixed = {0};
+        rideDao.forEachUpcomingSeatLedgerBatch(RECONCILE_BATCH_SIZE, batch -> {
+            List<ObjectId> ids = new ArrayList<>(batch.size());
+            for (RideDao.SeatLedger ledger : batch) {
+                ids.add(ledger.rideId());
+            }
+            Map<ObjectId, List<Booking>> confirmedByRide = bookingDao.findConfirmedByRideIds(ids);
+
+            for (RideDao.SeatLedger ledger : batch) {
+                List<Integer> used = ledger.seatsUsed();
+                if (used == null || used.isEmpty()) {
+                    continue;
+                }
+                List<Integer> expected = computeSeatsUsed(used.size(),
+                        confirmedByRide.getOrDefault(ledger.rideId(), List.of()));
+                if (expected.equals(used)) {
+                    continue;
+                }
+                // écart possible: une confirmation de cette instance était peut-être en cours,
+                // on refait le calcul sur le trajet complet, sous son verrou, avant de corriger
+                Lock lock = RIDE_LOCKS.acquire(ledger.rideId());
+                try {
+                    if (reconcileLocked(ledger.rideId())) {
+                        fixed[0]++;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+        return fixed[0];
+    }
+
+    // réconciliation d'un trajet, sous son verrou: registre relu en base, puis réservations
+    private boolean reconcileLocked(ObjectId rideId) {
+        Ride current = rideDao.findByIdFromDb(rideId);
+        if (current == null || !current.hasSeatLedger()) {
+            return false;
+        }
+        List<Integer> expected = computeSeatsUsed(current);
+        return !expected.equals(current.getSeatsUsed())
+                && rideDao.replaceSeatLedger(rideId, current.getSeatsUsed(), expected);
     }
 
     
@@ -352,8 +778,27 @@ public class BookingService {
 	        unitPrice = segPrice;
 	    }
 		
+		// Contrôle des places puis insertion sous le verrou du trajet:
+		// deux demandes simultanées ne lisent pas le même nombre de places restantes.
+		Lock lock = RIDE_LOCKS.acquire(ride.getId());
+		try {
+			return insertBookingForSegment(passenger, ride, path, fromIndex, toIndex, seats, unitPrice);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Booking insertBookingForSegment(User passenger, Ride ride, List<String> path,
+			int fromIndex, int toIndex, int seats, int unitPrice) throws BusinessException {
+		// Le trajet reçu a pu être lu (caches) avant une confirmation faite entre-temps:
+		// sous le verrou, on relit le registre directement en base.
+		Ride current = rideDao.findByIdFromDb(ride.getId());
+		if (current == null) {
+			throw new BusinessException("Trajet introuvable.");
+		}
+
 		// Vérifier les places disponible sur CE sous-trajet
-		int remaining = getRemainingSeatsForSegment(ride, fromIndex, toIndex);
+		int remaining = getRemainingSeatsForSegment(current, fromIndex, toIndex);
 		if (seats > remaining) {
 			throw new BusinessException("Plus assez de places disponibles sur ce sous-trajet.");
 		}
@@ -383,5 +828,12 @@ public class BookingService {
 		
 		return booking;
 	}
+
+    /**
+     * Verrous par trajet, pour les métriques (temps d'attente).
+     */
+    public static StripedLocks rideLocks() {
+        return RIDE_LOCKS;
+    }
  
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.covoit.covoiturage.service;
+
+import com.covoit.covoiturage.config.AppSettings;
+import com.covoit.covoiturage.dao.RideDao;
+import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.model.RideSummary;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Instantané des prochains trajets (page d'accueil et liste /rides sans recherche).
+ *
+ * Les listes sont recalculées en tâche de fond (toutes les refreshSeconds secondes,
+ * et juste après la création d'un trajet), puis publiées d'un seul coup dans une
+ * AtomicReference: les requêtes lisent l'instantané courant sans verrou ni requête Mongo.
+ * Les places ne sont pas suivies ici: /rides ne garde que l'ordre des trajets et relit
+ * leur registre seatsUsed dans RideCache (voir RideService.getUpcomingRidesAsync).
+ *
+ * Paramètres (voir AppSettings):
+ *  - covoit.latestRides.size           nombre de trajets gardés (20)
+ *  - covoit.latestRides.refreshSeconds intervalle de rafraîchissement (30)
+ */
+public final class LatestRidesSnapshot {
+
+    private static final Logger LOG = Logger.getLogger(LatestRidesSnapshot.class.getName());
+
+    private static final int SIZE = AppSettings.getInt("covoit.latestRides.size", 20);
+    private static final int REFRESH_SECONDS = AppSettings.getInt("covoit.latestRides.refreshSeconds", 30);
+
+    // listes non modifiables, remplacées ensemble
+    private record Snapshot(List<Ride> rides, List<RideSummary> summaries) { }
+
+    private static final AtomicReference<Snapshot> CURRENT = new AtomicReference<>();
+
+    private static final RideDao RIDE_DAO = new RideDao();
+
+    private static volatile ScheduledExecutorService scheduler;
+
+    private LatestRidesSnapshot() {
+        // Constructeur privé
+    }
+
+    /**
+     * Démarre le rafraîchissement périodique (StartupListener.contextInitialized).
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("latest-rides").daemon().factory());
+        scheduler.scheduleWithFixedDelay(LatestRidesSnapshot::refreshQuietly,
+                0, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Arrêt à la fin de l'application (StartupListener.contextDestroyed)
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Demande un rafraîchissement immédiat, en arrière-plan (après createRide).
+     */
+    public static void refreshSoon() {
+        ScheduledExecutorService s = scheduler;
+        if (s == null) {
+            // pas de tâche de fond (tests...): l'instantané sera rechargé à la prochaine lecture
+            CURRENT.set(null);
+            return;
+        }
+        try {
+            s.execute(LatestRidesSnapshot::refreshQuietly);
+        } catch (RejectedExecutionException e) {
+            // arrêt en cours
+        }
+    }
+
+    /**
+     * Les limit prochains trajets (au plus capacity()).
+     */
+    public static List<Ride> rides(int limit) {
+        List<Ride> rides = current().rides();
+        return rides.subList(0, Math.min(limit, rides.size()));
+    }
+
+    /*
+     * Nombre de trajets gardés: covoit.latestRides.size, plus un pour que
+     * la première page de /rides sache s'il existe une page suivante.
+     */
+    public static int capacity() {
+        return SIZE + 1;
+    }
+
+    // Même chose en version allégée (RideSummary) pour la page d'accueil
+    public static List<RideSummary> summaries(int limit) {
+        List<RideSummary> summaries = current().summaries();
+        return summaries.subList(0, Math.min(limit, summaries.size()));
+    }
+
+    // Instantané courant; chargé à la première lecture si la tâche de fond n'est pas encore passée
+    private static Snapshot current() {
+        Snapshot snapshot = CURRENT.get();
+        return (snapshot != null) ? snapshot : refresh();
+    }
+
+    // Recharge les deux listes depuis MongoDB et les publie
+    private static Snapshot refresh() {
+        Snapshot snapshot = new Snapshot(
+                List.copyOf(RIDE_DAO.findLatest(SIZE + 1)),
+                List.copyOf(RIDE_DAO.findLatestSummaries(SIZE)));
+        CURRENT.set(snapshot);
+        return snapshot;
+    }
+
+    // Version de la tâche de fond: une erreur ne doit pas arrêter les rafraîchissements suivants
+    // (une exception qui sort d'une tâche scheduleWithFixedDelay l'annule pour de bon)
+    private static void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Rafraîchissement des prochains trajets impossible", e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.covoit.covoiturage.service;
+
+import com.covoit.covoiturage.config.AppSettings;
+import com.covoit.covoiturage.util.TooManyRequestsException;
+import com.covoit.covoiturage.util.TtlLruCache;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limitation des tentatives de connexion échouées, par email et par adresse IP.
+ *
+ * Chaque échec incrémente deux compteurs ("email:..." et "ip:..."), conservés
+ * pendant une fenêtre (covoit.login.windowSeconds) à partir du dernier échec.
+ * Au-delà du maximum, les tentatives suivantes sont refusées avant tout calcul
+ * BCrypt (TooManyRequestsException -> HTTP 429). Une connexion réussie remet
+ * à zéro le compteur de l'email.
+ *
+ * Les compteurs sont propres à chaque instance de l'application.
+ */
+public class LoginThrottle {
+
+    private static final LoginThrottle SHARED = new LoginThrottle(
+            AppSettings.getInt("covoit.login.maxFailuresPerEmail", 5),
+            AppSettings.getInt("covoit.login.maxFailuresPerIp", 20),
+            Duration.ofSeconds(AppSettings.getInt("covoit.login.windowSeconds", 300)),
+            AppSettings.getInt("covoit.login.trackedKeys", 10_000));
+
+    private final int maxFailuresPerEmail;
+    private final int maxFailuresPerIp;
+    private final int retryAfterSeconds;
+    private final TtlLruCache<String, Integer> failures;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public LoginThrottle(int maxFailuresPerEmail, int maxFailuresPerIp, Duration window, int trackedKeys) {
+        this.maxFailuresPerEmail = maxFailuresPerEmail;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        this.retryAfterSeconds = (int) Math.max(1, window.toSeconds());
+        this.failures = new TtlLruCache<>(trackedKeys, window);
+    }
+
+    /**
+     * Instance partagée, configurée par covoit.login.*
+     */
+    public static LoginThrottle shared() {
+        return SHARED;
+    }
+
+    /**
+     * Refuse la tentative si l'email ou l'IP a déjà trop d'échecs récents.
+     */
+    public void checkAllowed(String email, String ip) throws TooManyRequestsException {
+        if (count(emailKey(email)) >= maxFailuresPerEmail
+                || count(ipKey(ip)) >= maxFailuresPerIp) {
+            throw new TooManyRequestsException(
+                    "Trop de tentatives de connexion. Réessayez plus tard.", retryAfterSeconds);
+        }
+    }
+
+    public void recordFailure(String email, String ip) {
+        increment(emailKey(email));
+        increment(ipKey(ip));
+    }
+
+    public void recordSuccess(String email) {
+        String key = emailKey(email);
+        if (key != null) {
+            failures.remove(key);
+        }
+    }
+
+    private int count(String key) {
+        if (key == null) {
+            return 0;
+        }
+        Integer n = failures.get(key);
+        return (n == null) ? 0 : n;
+    }
+
+    // lecture + écriture sous verrou: deux échecs simultanés comptent bien pour deux.
+    // put() remet la date de l'entrée à jour: la fenêtre repart à chaque échec.
+    private void increment(String key) {
+        if (key == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            failures.put(key, count(key) + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String emailKey(String email) {
+        return (email == null || email.isBlank()) ? null : "email:" + email.trim().toLowerCase();
+    }
+
+    private static String ipKey(String ip) {
+        return (ip == null || ip.isBlank()) ? null : "ip:" + ip;
+    }
+}
@@ -1,7 +1,11 @@
 package com.covoit.covoiturage.service;
 
+import com.covoit.covoiturage.dao.AsyncRideDao;
+import com.covoit.covoiturage.dao.RideCursor;
 import com.covoit.covoiturage.dao.RideDao;
 import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.model.RidePage;
+import com.covoit.covoiturage.model.RideSummary;
 import com.covoit.covoiturage.model.User;
 import com.covoit.covoiturage.util.BusinessException;
 import org.bson.types.ObjectId;
@@ -10,6 +14,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Logique métier pour les trajets (Ride).
@@ -19,6 +25,7 @@ import java.util.List;
 public class RideService {
 
     private final RideDao rideDao = new RideDao();
+    private final AsyncRideDao asyncRideDao = new AsyncRideDao(rideDao);
 
     /**
      * Création d'un trajet.
@@ -172,6 +179,9 @@ public class RideService {
 
         // Persistance Mongo
         rideDao.insert(ride);
+
+        // le nouveau trajet doit apparaître tout de suite dans les prochains trajets
+        LatestRidesSnapshot.refreshSoon();
     }
 
     /**
@@ -212,10 +222,96 @@ public class RideService {
     }
 
     /**
-     * Derniers trajets pour l'accueil ou la liste simple.
+     * Prochains trajets pour l'accueil ou la liste simple.
+     * Lus dans l'instantané LatestRidesSnapshot (pas de requête Mongo).
      */
     public List<Ride> getLatestRides(int limit) {
         if (limit <= 0) limit = 10;
-        return rideDao.findLatest(limit);
+        return LatestRidesSnapshot.rides(limit);
+    }
+
+    // Prochains trajets en version allégée (page d'accueil)
+    public List<RideSummary> getLatestRideSummaries(int limit) {
+        if (limit <= 0) limit = 10;
+        return LatestRidesSnapshot.summaries(limit);
+    }
+
+    // --- Versions asynchrones (servlets en startAsync) -----------------
+
+    /**
+     * Comme searchRides, sans bloquer l'appelant.
+     * Une saisie invalide donne un CompletionStage en échec (BusinessException).
+     */
+    public CompletionStage<List<Ride>> searchRidesAsync(String departureCity,
+                                                        String arrivalCity,
+                                                        LocalDate date) {
+        if (departureCity == null || departureCity.isBlank()
+                || arrivalCity == null || arrivalCity.isBlank()
+                || date == null) {
+            return CompletableFuture.failedFuture(
+                    new BusinessException("Merci de renseigner départ, arrivée et date."));
+        }
+        return asyncRideDao.searchByCitiesAndDate(departureCity, arrivalCity, date);
+    }
+
+    /**
+     * Une page de prochains trajets (liste /rides sans recherche), sans bloquer l'appelant.
+     *
+     * @param after    curseur de la page précédente (paramètre "after" de l'URL, voir RideCursor);
+     *                 absent ou illisible = première page
+     * @param pageSize nombre de trajets par page
+     */
+    public CompletionStage<RidePage> getUpcomingRidesAsync(String after, int pageSize) {
+        int size = (pageSize <= 0) ? 10 : pageSize;
+        RideCursor cursor = RideCursor.parse(after);
+
+        // on demande un trajet de plus pour savoir s'il existe une page suivante
+        CompletionStage<List<Ride>> rides;
+        if (cursor == null && size + 1 <= LatestRidesSnapshot.capacity()) {
+            // première page: l'ordre vient de l'instantané, les trajets du cache
+            rides = withCurrentSeats(LatestRidesSnapshot.rides(size + 1), size + 1);
+        } else {
+            rides = asyncRideDao.findUpcoming(cursor, size + 1);
+        }
+        return rides.thenApply(list -> toPage(list, size));
+    }
+
+    /*
+     * L'instantané n'est pas rafraîchi quand des places sont confirmées ou annulées:
+     * son registre seatsUsed peut avoir jusqu'à refreshSeconds de retard.
+     * On relit donc ces trajets par findByIds (RideCache, vidé à chaque reserveSeats /
+     * releaseSeats et par le change stream), en gardant l'ordre de l'instantané.
+     * Si un trajet a été supprimé entre-temps, la liste serait trop courte pour savoir
+     * s'il existe une page suivante: on relit alors la page dans MongoDB.
+     */
+    private CompletionStage<List<Ride>> withCurrentSeats(List<Ride> snapshotRides, int limit) {
+        if (snapshotRides.isEmpty()) {
+            return CompletableFuture.completedFuture(snapshotRides);
+        }
+        List<ObjectId> ids = new ArrayList<>(snapshotRides.size());
+        for (Ride ride : snapshotRides) {
+            ids.add(ride.getId());
+        }
+        return asyncRideDao.findByIds(ids).thenCompose(byId -> {
+            List<Ride> current = new ArrayList<>(ids.size());
+            for (ObjectId id : ids) {
+                Ride ride = byId.get(id);
+                if (ride == null) {
+                    return asyncRideDao.findUpcoming(null, limit);
+                }
+                current.add(ride);
+            }
+            return CompletableFuture.completedFuture(current);
+        });
+    }
+
+    // Garde pageSize trajets; le curseur suivant est la position du dernier trajet gardé
+    private static RidePage toPage(List<Ride> rides, int pageSize) {
+        if (rides.size() <= pageSize) {
+            return new RidePage(rides, null);
+        }
+        List<Ride> shown = rides.subList(0, pageSize);
+        RideCursor next = RideCursor.after(shown.get(pageSize - 1));
+        return new RidePage(shown, (next == null) ? null : next.toString());
     }
-}
\ No newline at end of file
+}
@@ -4,12 +4,17 @@ import com.covoit.covoiturage.dao.UserDao;
 import com.covoit.covoiturage.model.User;
 import com.covoit.covoiturage.util.BusinessException;
 import com.covoit.covoiturage.util.PasswordUtils;
+import com.covoit.covoiturage.util.TooManyRequestsException;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
 
 /**
  * Ici on fait :
  *  - validation des données
  *  - règles fonctionnelles (unicité email, etc.)
- *  - hashage du mot de passe
+ *  - hashage du mot de passe (pool BCrypt de PasswordUtils)
+ *  - limitation des tentatives de connexion (LoginThrottle)
  *
  * Les servlets utilisent UserService, pas directement UserDao.
  */
@@ -18,10 +23,12 @@ import com.covoit.covoiturage.util.PasswordUtils;
 public class UserService {
 
     private final UserDao userDao = new UserDao();
+    private final LoginThrottle loginThrottle = LoginThrottle.shared();
 
     /**
      * Inscrit un nouvel utilisateur.
-     * @throws BusinessException si les données sont invalides ou l'email déjà utilisé.
+     * @throws BusinessException si les données sont invalides ou l'email déjà utilisé
+     *         (TooManyRequestsException si le calcul BCrypt est saturé).
      */
     public User register(String name, String email, String rawPassword) throws BusinessException {
 
@@ -31,8 +38,11 @@ public class UserService {
             throw new BusinessException("Tous les champs sont obligatoires.");
         }
 
+        // les emails sont stockés en minuscules (index unique sur users.email)
+        String normalizedEmail = email.trim().toLowerCase();
+
         // Vérifier que l'email n'est pas déjà pris
-        if (userDao.findByEmail(email) != null) {
+        if (userDao.findByEmail(normalizedEmail) != null) {
             throw new BusinessException("Cet email est déjà utilisé.");
         }
 
@@ -42,36 +52,71 @@ public class UserService {
         // Création de l'utilisateur
         User u = new User();
         u.setName(name.trim());
-        u.setEmail(email.trim().toLowerCase());
+        u.setEmail(normalizedEmail);
         u.setPasswordHash(hash);
 
-        // Persistance
-        userDao.insert(u);
+        // Persistance (l'index unique protège contre deux inscriptions simultanées)
+        try {
+            userDao.insert(u);
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                throw new BusinessException("Cet email est déjà utilisé.");
+            }
+            throw e;
+        }
 
         return u;
     }
 
     /**
      * Tente de connecter un utilisateur.
+     * @param clientIp adresse IP du client (limitation des tentatives)
      * @return l'utilisateur si OK
      * @throws BusinessException si email inconnu ou mot de passe invalide
+     * @throws TooManyRequestsException si trop d'échecs récents, ou calcul BCrypt saturé
      */
-    public User login(String email, String rawPassword) throws BusinessException {
+    public User login(String email, String rawPassword, String clientIp) throws BusinessException {
 
         if (email == null || email.isBlank()
                 || rawPassword == null || rawPassword.isBlank()) {
             throw new BusinessException("Email et mot de passe sont obligatoires.");
         }
 
-        User user = userDao.findByEmail(email.trim().toLowerCase());
+        String normalizedEmail = email.trim().toLowerCase();
+
+        // refus immédiat (avant BCrypt) si trop d'échecs récents pour cet email ou cette IP
+        loginThrottle.checkAllowed(normalizedEmail, clientIp);
+
+        User user = userDao.findByEmail(normalizedEmail);
         if (user == null) {
+            loginThrottle.recordFailure(normalizedEmail, clientIp);
             throw new BusinessException("Email ou mot de passe incorrect.");
         }
 
         if (!PasswordUtils.checkPassword(rawPassword, user.getPasswordHash())) {
+            loginThrottle.recordFailure(normalizedEmail, clientIp);
             throw new BusinessException("Email ou mot de passe incorrect.");
         }
+        loginThrottle.recordSuccess(normalizedEmail);
+
+        // le coût BCrypt a changé depuis le calcul du hash: on le recalcule
+        // maintenant que l'on connaît le mot de passe en clair
+        if (PasswordUtils.needsRehash(user.getPasswordHash())) {
+            rehash(user, rawPassword);
+        }
 
         return user;
     }
+
+    // Recalcul du hash au coût actuel; en cas d'échec, la connexion reste valide
+    // (le hash sera recalculé à une prochaine connexion).
+    private void rehash(User user, String rawPassword) {
+        try {
+            String hash = PasswordUtils.hashPassword(rawPassword);
+            userDao.updatePasswordHash(user.getId(), hash);
+            user.setPasswordHash(hash);
+        } catch (TooManyRequestsException | MongoException e) {
+            // pool saturé ou base indisponible: on garde l'ancien hash
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package com.covoit.covoiturage.util;
+
+import org.bson.types.ObjectId;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Jetons de connexion signés (HMAC-SHA256), transportés dans un cookie.
+ *
+ * Format: "<id utilisateur hex>.<expiration en secondes epoch>.<nom base64url>.<signature base64url>"
+ * Le jeton contient l'id, la date d'expiration et le nom affiché (barre de navigation,
+ * sans lecture en base): n'importe quelle instance qui connaît le secret peut le vérifier,
+ * sans session côté serveur.
+ * Les jetons émis avant l'ajout du nom ("<id>.<expiration>.<signature>") restent
+ * acceptés jusqu'à leur expiration, avec un nom null.
+ */
+public final class AuthTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+
+    // longueur maximale du nom gardé dans le jeton (taille du cookie)
+    static final int MAX_NAME_LENGTH = 64;
+
+    // contenu d'un jeton valide; name est null pour un jeton sans nom
+    public record Token(ObjectId userId, String name, long expiresAt) { }
+
+    public AuthTokens(byte[] secret) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    /**
+     * Crée un jeton pour l'utilisateur, valable jusqu'à expiresAt (secondes epoch).
+     * @param name nom affiché (tronqué à MAX_NAME_LENGTH), null pour un jeton sans nom
+     */
+    public String issue(ObjectId userId, String name, long expiresAt) {
+        String payload = userId.toHexString() + "." + expiresAt;
+        if (name != null) {
+            String shown = name;
+            if (shown.length() > MAX_NAME_LENGTH) {
+                // sans couper un caractère en deux (paire de substitution)
+                int end = Character.isHighSurrogate(shown.charAt(MAX_NAME_LENGTH - 1))
+                        ? MAX_NAME_LENGTH - 1 : MAX_NAME_LENGTH;
+                shown = shown.substring(0, end);
+            }
+            payload += "." + ENCODER.encodeToString(shown.getBytes(StandardCharsets.UTF_8));
+        }
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    // Jeton sans nom
+    public String issue(ObjectId userId, long expiresAt) {
+        return issue(userId, null, expiresAt);
+    }
+
+    /**
+     * Vérifie la signature et l'expiration du jeton.
+     * @param now heure actuelle (secondes epoch)
+     * @return le contenu du jeton, ou null s'il est absent, illisible, falsifié ou expiré
+     */
+    public Token verify(String token, long now) {
+        if (token == null) {
+            return null;
+        }
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first <= 0 || last <= first + 1 || last == token.length() - 1) {
+            return null;
+        }
+
+        String payload = token.substring(0, last);
+        byte[] signature;
+        try {
+            signature = DECODER.decode(token.substring(last + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        // comparaison en temps constant
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+
+        // id.expiration ou id.expiration.nom
+        String[] parts = payload.split("\\.", -1);
+        if (parts.length != 2 && parts.length != 3) {
+            return null;
+        }
+        String hexId = parts[0];
+        long expiresAt;
+        String name = null;
+        try {
+            expiresAt = Long.parseLong(parts[1]);
+            if (parts.length == 3) {
+                name = new String(DECODER.decode(parts[2]), StandardCharsets.UTF_8);
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException (expiration) ou base64 illisible (nom)
+            return null;
+        }
+        if (expiresAt <= now || !ObjectId.isValid(hexId)) {
+            return null;
+        }
+        return new Token(new ObjectId(hexId), name, expiresAt);
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            // Mac n'est pas thread-safe: une instance par appel
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 indisponible", e);
+        }
+    }
+}
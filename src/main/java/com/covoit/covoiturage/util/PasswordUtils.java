@@ -1,36 +1,165 @@
 package com.covoit.covoiturage.util;
 
+import com.covoit.covoiturage.config.AppSettings;
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Utilitaire pour gérer le hashage et la vérification des mots de passe.
  * On centralise l'usage de BCrypt ici.
+ *
+ * BCrypt est volontairement lent (calcul CPU): les calculs ne tournent pas
+ * sur les threads de Tomcat mais sur un pool dédié, borné au nombre de coeurs,
+ * avec une file d'attente limitée. Quand la file est pleine (rafale de connexions),
+ * la demande est refusée tout de suite (TooManyRequestsException -> HTTP 429)
+ * au lieu d'occuper un thread de Tomcat de plus.
+ *
+ * Paramètres (voir AppSettings):
+ *  - covoit.bcrypt.cost: coût BCrypt des nouveaux hash (10 par défaut)
+ *  - covoit.bcrypt.threads: taille du pool (nombre de coeurs par défaut)
+ *  - covoit.bcrypt.queue: demandes en attente au maximum (4 par thread par défaut)
  */
 public final class PasswordUtils {
 
+    private static final int COST =
+            Math.max(4, Math.min(31, AppSettings.getInt("covoit.bcrypt.cost", 10)));
+
+    private static final int THREADS =
+            Math.max(1, AppSettings.getInt("covoit.bcrypt.threads", Runtime.getRuntime().availableProcessors()));
+
+    private static final ThreadPoolExecutor POOL = newPool(
+            THREADS, Math.max(1, AppSettings.getInt("covoit.bcrypt.queue", 4 * THREADS)));
+
+    private static final LongAdder REJECTED = new LongAdder();
+
     private PasswordUtils() {
-        // Constructeur privé 
+        // Constructeur privé
     }
 
     /**
-     * Hash un mot de passe en clair avec BCrypt.
+     * Hash un mot de passe en clair avec BCrypt (coût covoit.bcrypt.cost), sur le pool dédié.
      * @param rawPassword mot de passe en clair
      * @return hash BCrypt
-    */
-    public static String hashPassword(String rawPassword) {
-        return BCrypt.hashpw(rawPassword, BCrypt.gensalt());
+     * @throws TooManyRequestsException si le pool est saturé
+     */
+    public static String hashPassword(String rawPassword) throws TooManyRequestsException {
+        return run(() -> BCrypt.hashpw(rawPassword, BCrypt.gensalt(COST)));
     }
 
     /**
-     * Vérifie si un mot de passe en clair correspond à un hash BCrypt.
+     * Vérifie si un mot de passe en clair correspond à un hash BCrypt, sur le pool dédié.
      * @param rawPassword mot de passe en clair
      * @param hash hash stocké en base
      * @return true si ça correspond, sinon false
+     * @throws TooManyRequestsException si le pool est saturé
      */
-    public static boolean checkPassword(String rawPassword, String hash) {
+    public static boolean checkPassword(String rawPassword, String hash) throws TooManyRequestsException {
         if (rawPassword == null || hash == null) {
             return false;
         }
-        return BCrypt.checkpw(rawPassword, hash);
+        return run(() -> {
+            try {
+                return BCrypt.checkpw(rawPassword, hash);
+            } catch (IllegalArgumentException e) {
+                // hash illisible (donnée corrompue): identifiants refusés
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Indique si le hash a été calculé avec un autre coût que le coût actuel
+     * (il sera recalculé à la prochaine connexion réussie).
+     */
+    public static boolean needsRehash(String hash) {
+        return costOf(hash) != COST;
+    }
+
+    // coût lu dans le hash: "$2a$10$..." -> 10 (-1 si illisible)
+    static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Exécute le calcul sur le pool et attend son résultat.
+    private static <T> T run(Callable<T> task) throws TooManyRequestsException {
+        Future<T> future;
+        try {
+            future = POOL.submit(task);
+        } catch (RejectedExecutionException e) {
+            REJECTED.increment();
+            throw new TooManyRequestsException(
+                    "Trop de connexions en cours, réessayez dans quelques secondes.", 1);
+        }
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    // le calcul est déjà lancé: on attend quand même son résultat
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor newPool(int threads, int queueSize) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + count.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // --- métriques (MetricsServlet)
+
+    public static long getRejected() {
+        return REJECTED.sum();
+    }
+
+    public static int getQueued() {
+        return POOL.getQueue().size();
+    }
+
+    public static int getActive() {
+        return POOL.getActiveCount();
+    }
+
+    /**
+     * Arrêt à la fin de l'application (StartupListener.contextDestroyed).
+     */
+    public static void shutdown() {
+        POOL.shutdown();
     }
 }
@@ -0,0 +1,72 @@
+package com.covoit.covoiturage.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Génère l'image PNG d'un QR Code.
+ *
+ * L'image est en 1 bit par pixel (palette blanc/noir): les bits de la matrice
+ * ZXing sont écrits directement dans le buffer de l'image, sans passer par
+ * setRGB pixel par pixel. Le PNG obtenu est aussi beaucoup plus petit.
+ */
+public final class QrCodeRenderer {
+
+    // palette: index 0 = blanc, index 1 = noir (bit à 1 = module noir du QR Code)
+    private static final IndexColorModel BLACK_AND_WHITE = new IndexColorModel(1, 2,
+            new byte[] { (byte) 0xFF, 0 },
+            new byte[] { (byte) 0xFF, 0 },
+            new byte[] { (byte) 0xFF, 0 });
+
+    private QrCodeRenderer() {
+        // Constructeur privé
+    }
+
+    /**
+     * Encode le texte en QR Code et retourne les octets du PNG.
+     * @param data contenu du QR Code (code du ticket)
+     * @param size largeur et hauteur de l'image, en pixels
+     */
+    public static byte[] renderPng(String data, int size) throws WriterException, IOException {
+        BitMatrix matrix = new QRCodeWriter().encode(data, BarcodeFormat.QR_CODE, size, size);
+        BufferedImage image = toImage(matrix);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        ImageIO.write(image, "PNG", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Copie la matrice dans une image 1 bit: 8 pixels par octet, bit de poids fort à gauche.
+     */
+    static BufferedImage toImage(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY, BLACK_AND_WHITE);
+        WritableRaster raster = image.getRaster();
+        byte[] pixels = ((DataBufferByte) raster.getDataBuffer()).getData();
+        int stride = ((MultiPixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * stride;
+            for (int x = 0; x < width; x++) {
+                if (matrix.get(x, y)) {
+                    pixels[rowStart + (x >> 3)] |= (byte) (0x80 >> (x & 7));
+                }
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,88 @@
+package com.covoit.covoiturage.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verrous "striped": un tableau fixe de ReentrantLock, choisi par le hash de la clé.
+ * Deux opérations sur la même clé (ex. le même trajet) passent l'une après l'autre;
+ * des clés différentes tombent le plus souvent sur des verrous différents
+ * et avancent en parallèle, sans verrou global.
+ *
+ * Le temps d'attente pour obtenir un verrou est mesuré (voir getWaitMillis, getMaxWaitMillis).
+ * Ce verrou ne protège qu'une seule JVM: entre plusieurs instances,
+ * ce sont les mises à jour conditionnelles dans MongoDB qui garantissent la cohérence.
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param stripes nombre de verrous (arrondi à la puissance de 2 supérieure ou égale, 1 au minimum)
+     */
+    public StripedLocks(int stripes) {
+        int size = (stripes <= 1) ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Prend le verrou associé à la clé et le retourne;
+     * l'appelant le libère avec unlock() dans un finally.
+     */
+    public Lock acquire(Object key) {
+        ReentrantLock lock = lockFor(key);
+        acquisitions.increment();
+
+        // cas courant: verrou libre, pas d'attente
+        if (lock.tryLock()) {
+            return lock;
+        }
+
+        contended.increment();
+        long start = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return lock;
+    }
+
+    // même étalement des bits que HashMap, puis masque sur la taille du tableau
+    ReentrantLock lockFor(Object key) {
+        int h = (key == null) ? 0 : key.hashCode();
+        h ^= (h >>> 16);
+        return locks[h & (locks.length - 1)];
+    }
+
+    public int getStripes() {
+        return locks.length;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    // nombre d'acquisitions qui ont dû attendre
+    public long getContended() {
+        return contended.sum();
+    }
+
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+}
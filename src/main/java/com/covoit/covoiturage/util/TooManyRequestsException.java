@@ -0,0 +1,23 @@
+package com.covoit.covoiturage.util;
+
+/**
+ * Erreur métier "trop de demandes": la requête est refusée tout de suite
+ * (trop de tentatives de connexion, ou calcul des mots de passe saturé).
+ *
+ * Les servlets la traduisent en réponse HTTP 429 avec un en-tête Retry-After.
+ */
+public class TooManyRequestsException extends BusinessException {
+    private static final long serialVersionUID = 1L;
+
+    private final int retryAfterSeconds;
+
+    public TooManyRequestsException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    // délai conseillé avant de réessayer (en-tête Retry-After)
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
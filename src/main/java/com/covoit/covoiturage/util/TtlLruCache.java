@@ -0,0 +1,163 @@
+package com.covoit.covoiturage.util;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Petit cache mémoire borné, partagé entre les threads de Tomcat.
+ *  - éviction par taille: au-delà de maxEntries, on retire l'entrée
+ *    la moins récemment utilisée (LRU)
+ *  - éviction par durée: une entrée plus vieille que ttl est ignorée et retirée
+ *
+ * On utilise un ReentrantLock plutôt que synchronized pour ne pas bloquer
+ * un thread porteur si l'application tourne sur des threads virtuels.
+ */
+public class TtlLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    // valeur et date d'insertion
+    private record Entry<V>(V value, long createdAt) { }
+
+    public TtlLruCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    // constructeur avec horloge injectable (tests)
+    TtlLruCache(int maxEntries, Duration ttl, LongSupplier clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        // accessOrder = true -> l'ordre d'itération est celui des accès (LRU)
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > TtlLruCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Retourne la valeur associée à la clé, ou null si absente ou expirée.
+     */
+    public V get(K key) {
+        lock.lock();
+        try {
+            Entry<V> e = map.get(key);
+            if (e == null) {
+                return null;
+            }
+            if (clock.getAsLong() - e.createdAt() > ttlNanos) {
+                map.remove(key);
+                return null;
+            }
+            return e.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            map.put(key, new Entry<>(value, clock.getAsLong()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Comme put, mais seulement si condition est vraie. La condition est évaluée
+     * sous le verrou du cache: un remove / clear ne peut pas s'intercaler
+     * entre la vérification et l'écriture.
+     * @return true si la valeur a été mise en cache
+     */
+    public boolean putIf(K key, V value, BooleanSupplier condition) {
+        if (key == null || value == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (!condition.getAsBoolean()) {
+                return false;
+            }
+            map.put(key, new Entry<>(value, clock.getAsLong()));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true si une entrée a été retirée
+     */
+    public boolean remove(K key) {
+        lock.lock();
+        try {
+            return map.remove(key) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retire toutes les entrées qui vérifient le filtre (clé, valeur).
+     * @return nombre d'entrées retirées
+     */
+    public int removeIf(BiPredicate<? super K, ? super V> filter) {
+        lock.lock();
+        try {
+            int before = map.size();
+            map.entrySet().removeIf(e -> filter.test(e.getKey(), e.getValue().value()));
+            return before - map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copie des clés présentes (expirées comprises), sans changer l'ordre LRU.
+     */
+    public Set<K> keys() {
+        lock.lock();
+        try {
+            return new HashSet<>(map.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            map.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,11 +1,9 @@
 package com.covoit.covoiturage.web.filter;
 
-import com.covoit.covoiturage.model.User;
 import jakarta.servlet.*;
 import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 
@@ -13,7 +11,7 @@ import java.io.IOException;
  * Filtre d'authentification.
  *
  * Il s'applique sur les URL qui doivent être protégées.
- * Si l'utilisateur n'est pas connecté (pas de "user" en session),
+ * Si l'utilisateur n'est pas connecté (pas de cookie de connexion valide, voir CurrentUser),
  * on le redirige vers /login.
  * * Laisse l'accès PUBLIC à /home, /rides, etc.
  * Ne protège QUE les URL qui nécessitent d'être connecté :
@@ -23,7 +21,7 @@ import java.io.IOException;
  */
 
 
-@WebFilter({
+@WebFilter(asyncSupported = true, urlPatterns = {
         "/rides/new",
         "/book", 
         "/book/*",
@@ -41,10 +39,8 @@ public class AuthFilter implements Filter {
         HttpServletRequest req  = (HttpServletRequest) request;
         HttpServletResponse resp = (HttpServletResponse) response;
 
-        HttpSession session = req.getSession(false);
-        User user = (session == null) ? null : (User) session.getAttribute("user");
-
-        if (user == null) {
+        // vérification de la signature du cookie seulement: pas de lecture du User en base
+        if (CurrentUser.of(req) == null) {
             // Si Pas connecté -> redirection vers la page de connexion
             // On pourrait ajouter un paramètre redirect pour revenir ensuite.
             resp.sendRedirect(req.getContextPath() + "/login");
@@ -0,0 +1,187 @@
+package com.covoit.covoiturage.web.filter;
+
+import com.covoit.covoiturage.config.AppSettings;
+import com.covoit.covoiturage.dao.UserDao;
+import com.covoit.covoiturage.model.User;
+import com.covoit.covoiturage.util.AuthTokens;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.logging.Logger;
+
+/**
+ * Utilisateur connecté pour la requête en cours, lu depuis le cookie signé "covoit_auth"
+ * (voir AuthTokens). Rien n'est stocké en HttpSession: toute instance de l'application
+ * qui partage le secret reconnaît l'utilisateur.
+ *
+ * Le cookie porte l'id et le nom affiché: la barre de navigation (getName()) ne lit
+ * rien en base. L'objet User n'est chargé depuis MongoDB que si on en a besoin (getUser()),
+ * une seule fois par requête.
+ * Les JSP y accèdent par l'attribut de requête "currentUser" (posé par CurrentUserFilter).
+ *
+ * Paramètres (voir AppSettings):
+ *  - covoit.auth.secret: secret HMAC commun à toutes les instances (32 caractères minimum).
+ *    Sans secret, on en tire un au hasard: les connexions ne survivent pas à un redémarrage.
+ *    docker-compose.yml n'en fournit pas: il refuse de démarrer sans COVOIT_AUTH_SECRET.
+ *  - covoit.auth.ttlSeconds: durée de validité du cookie (24 h par défaut)
+ *  - covoit.auth.secureCookie: cookie réservé à HTTPS (false par défaut)
+ */
+public final class CurrentUser {
+
+    private static final Logger LOG = Logger.getLogger(CurrentUser.class.getName());
+
+    public static final String ATTRIBUTE = "currentUser";
+    static final String COOKIE = "covoit_auth";
+
+    // ancienne valeur par défaut de docker-compose.yml, publique: n'importe qui pourrait signer un cookie
+    private static final String PUBLISHED_DEV_SECRET = "dev-secret-covoiturage-a-changer-en-prod";
+
+    private static final AuthTokens TOKENS = new AuthTokens(secret());
+    private static final long TTL_SECONDS = Math.max(60, AppSettings.getInt("covoit.auth.ttlSeconds", 86_400));
+    private static final boolean SECURE_COOKIE = AppSettings.getBoolean("covoit.auth.secureCookie", false);
+
+    private final ObjectId id;
+    private final long expiresAt;
+    // nom lu dans le jeton (null pour un ancien jeton sans nom)
+    private final String name;
+
+    // chargé à la demande
+    private User user;
+    private boolean loaded;
+
+    private CurrentUser(ObjectId id, String name, long expiresAt) {
+        this.id = id;
+        this.name = name;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Utilisateur connecté de la requête, ou null si pas de cookie valide.
+     */
+    public static CurrentUser of(HttpServletRequest req) {
+        Object attr = req.getAttribute(ATTRIBUTE);
+        if (attr instanceof CurrentUser current) {
+            return current;
+        }
+        CurrentUser current = fromCookie(req);
+        if (current != null) {
+            req.setAttribute(ATTRIBUTE, current);
+        }
+        return current;
+    }
+
+    /**
+     * Raccourci: User complet de l'utilisateur connecté, ou null.
+     */
+    public static User user(HttpServletRequest req) {
+        CurrentUser current = of(req);
+        return (current == null) ? null : current.getUser();
+    }
+
+    /**
+     * Connexion: pose le cookie signé pour cet utilisateur.
+     */
+    public static void signIn(HttpServletRequest req, HttpServletResponse resp, User user) {
+        long expiresAt = now() + TTL_SECONDS;
+        writeCookie(req, resp, TOKENS.issue(user.getId(), user.getName(), expiresAt), (int) TTL_SECONDS);
+
+        CurrentUser current = new CurrentUser(user.getId(), user.getName(), expiresAt);
+        current.user = user;
+        current.loaded = true;
+        req.setAttribute(ATTRIBUTE, current);
+    }
+
+    /**
+     * Déconnexion: efface le cookie.
+     */
+    public static void signOut(HttpServletRequest req, HttpServletResponse resp) {
+        writeCookie(req, resp, "", 0);
+        req.removeAttribute(ATTRIBUTE);
+    }
+
+    /**
+     * Renouvelle le cookie quand plus de la moitié de sa durée est écoulée,
+     * pour qu'un utilisateur actif ne soit pas déconnecté.
+     */
+    void refreshIfNeeded(HttpServletRequest req, HttpServletResponse resp) {
+        if (expiresAt - now() < TTL_SECONDS / 2 && !resp.isCommitted()) {
+            writeCookie(req, resp, TOKENS.issue(id, getName(), now() + TTL_SECONDS), (int) TTL_SECONDS);
+        }
+    }
+
+    public ObjectId getId() {
+        return id;
+    }
+
+    /**
+     * User complet, lu en base au premier appel (null si le compte n'existe plus).
+     */
+    public User getUser() {
+        if (!loaded) {
+            user = new UserDao().findById(id);
+            loaded = true;
+        }
+        return user;
+    }
+
+    /**
+     * Nom affiché, lu dans le jeton; pour un ancien jeton sans nom, lu en base.
+     */
+    public String getName() {
+        if (name != null) {
+            return name;
+        }
+        User u = getUser();
+        return (u == null) ? null : u.getName();
+    }
+
+    private static CurrentUser fromCookie(HttpServletRequest req) {
+        Cookie[] cookies = req.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie c : cookies) {
+            if (COOKIE.equals(c.getName())) {
+                AuthTokens.Token token = TOKENS.verify(c.getValue(), now());
+                return (token == null) ? null : new CurrentUser(token.userId(), token.name(), token.expiresAt());
+            }
+        }
+        return null;
+    }
+
+    private static void writeCookie(HttpServletRequest req, HttpServletResponse resp, String value, int maxAge) {
+        Cookie cookie = new Cookie(COOKIE, value);
+        String path = req.getContextPath();
+        cookie.setPath(path.isEmpty() ? "/" : path);
+        cookie.setMaxAge(maxAge);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(SECURE_COOKIE);
+        cookie.setAttribute("SameSite", "Lax");
+        resp.addCookie(cookie);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static byte[] secret() {
+        String configured = AppSettings.get("covoit.auth.secret", null);
+        if (PUBLISHED_DEV_SECRET.equals(configured)) {
+            LOG.severe("covoit.auth.secret vaut l'ancienne valeur de développement publiée "
+                    + "dans docker-compose.yml: elle est refusée.");
+            configured = null;
+        }
+        if (configured != null && configured.length() >= 32) {
+            return configured.getBytes(StandardCharsets.UTF_8);
+        }
+        LOG.warning("covoit.auth.secret absent ou trop court: secret aléatoire, "
+                + "les connexions ne seront valables que sur cette instance jusqu'au redémarrage.");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+}
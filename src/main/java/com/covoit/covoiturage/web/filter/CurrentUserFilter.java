@@ -0,0 +1,37 @@
+package com.covoit.covoiturage.web.filter;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Lit le cookie de connexion signé sur chaque requête et pose l'attribut
+ * "currentUser" (voir CurrentUser) pour les servlets et les JSP.
+ * Seule la signature est vérifiée ici: aucun accès MongoDB tant que
+ * personne ne demande le User complet.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true, dispatcherTypes = DispatcherType.REQUEST)
+public class CurrentUserFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+
+        CurrentUser current = CurrentUser.of(req);
+        if (current != null) {
+            current.refreshIfNeeded(req, (HttpServletResponse) response);
+        }
+
+        chain.doFilter(request, response);
+    }
+}
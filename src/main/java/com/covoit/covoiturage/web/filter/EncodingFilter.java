@@ -8,7 +8,7 @@ import java.io.IOException;
 /**
  * Filtre qui force l'encodage UTF-8 sur toutes les requêtes/réponses.
  */
-@WebFilter("/*")
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
 public class EncodingFilter implements Filter {
 
     @Override
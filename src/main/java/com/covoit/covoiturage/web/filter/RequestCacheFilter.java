@@ -0,0 +1,42 @@
+package com.covoit.covoiturage.web.filter;
+
+import com.covoit.covoiturage.dao.RequestCache;
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+
+import java.io.IOException;
+
+/**
+ * Filtre qui ouvre un RequestCache pour la durée de la requête:
+ * un même trajet / utilisateur n'est lu qu'une fois dans MongoDB par requête.
+ *
+ * Le cache est aussi rangé dans un attribut de requête, pour être retrouvé
+ * si la requête repasse dans le filtre (dispatch asynchrone).
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true,
+        dispatcherTypes = {DispatcherType.REQUEST, DispatcherType.ASYNC})
+public class RequestCacheFilter implements Filter {
+
+    private static final String ATTRIBUTE = RequestCache.class.getName();
+
+    @Override
+    public void doFilter(ServletRequest request,
+                         ServletResponse response,
+                         FilterChain chain)
+            throws IOException, ServletException {
+
+        RequestCache cache = (RequestCache) request.getAttribute(ATTRIBUTE);
+        if (cache == null) {
+            cache = new RequestCache();
+            request.setAttribute(ATTRIBUTE, cache);
+        }
+
+        // le thread de Tomcat est réutilisé: on détache toujours le cache à la fin
+        RequestCache previous = RequestCache.bind(cache);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestCache.restore(previous);
+        }
+    }
+}
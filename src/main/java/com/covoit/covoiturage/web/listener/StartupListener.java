@@ -0,0 +1,111 @@
+package com.covoit.covoiturage.web.listener;
+
+import com.covoit.covoiturage.config.AppSettings;
+import com.covoit.covoiturage.config.MongoManager;
+import com.covoit.covoiturage.dao.DaoExecutor;
+import com.covoit.covoiturage.dao.RideCache;
+import com.covoit.covoiturage.dao.RideChangeListener;
+import com.covoit.covoiturage.dao.RideDao;
+import com.covoit.covoiturage.service.BookingService;
+import com.covoit.covoiturage.service.LatestRidesSnapshot;
+import com.covoit.covoiturage.util.PasswordUtils;
+import com.mongodb.MongoException;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tâches lancées une seule fois au démarrage de l'application:
+ *  - création des index MongoDB utilisés par les DAO (voir MongoManager)
+ *  - migration des anciens trajets (champs "pathCities" et "seatsUsed")
+ *  - démarrage du rafraîchissement des prochains trajets (LatestRidesSnapshot)
+ *  - écoute des modifications des trajets faites par les autres instances (RideChangeListener)
+ *
+ * Si MongoDB n'est pas joignable, on journalise l'erreur sans bloquer
+ * le démarrage de Tomcat.
+ *
+ * À l'arrêt, on journalise les compteurs du cache des trajets
+ * puis on arrête les tâches de fond (change stream, prochains trajets, DAO asynchrones, BCrypt).
+ */
+@WebListener
+public class StartupListener implements ServletContextListener {
+
+    private static final Logger LOG = Logger.getLogger(StartupListener.class.getName());
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        try {
+            long start = System.nanoTime();
+            int indexes = MongoManager.ensureIndexes();
+            LOG.info(indexes + " index MongoDB prêts en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+            RideDao rideDao = new RideDao();
+
+            int migrated = rideDao.migratePathCities();
+            if (migrated > 0) {
+                LOG.info("Migration pathCities: " + migrated + " trajet(s) mis à jour.");
+            }
+
+            BookingService bookingService = new BookingService();
+            int ledgers = bookingService.migrateSeatLedgers();
+            if (ledgers > 0) {
+                LOG.info("Migration seatsUsed: " + ledgers + " trajet(s) mis à jour.");
+            }
+
+            // places restées prises par une confirmation interrompue (voir BookingService)
+            if (shouldReconcileSeatLedgers()) {
+                int reconciled = bookingService.reconcileSeatLedgers();
+                if (reconciled > 0) {
+                    LOG.warning("Réconciliation seatsUsed: " + reconciled + " trajet(s) corrigé(s).");
+                }
+            }
+        } catch (MongoException e) {
+            LOG.log(Level.WARNING, "Initialisation MongoDB impossible au démarrage", e);
+        }
+
+        // rafraîchissement périodique des prochains trajets (accueil, /rides)
+        LatestRidesSnapshot.start();
+
+        // invalidation des caches quand une autre instance modifie un trajet
+        RideChangeListener.start(LatestRidesSnapshot::refreshSoon);
+    }
+
+    /*
+     * Sur un replica set, places et statut changent dans une même transaction:
+     * le registre relu ne contient jamais une confirmation à moitié faite.
+     * Sans transactions, une autre instance peut être entre reserveSeats et le passage
+     * en CONFIRMED: la réconciliation effacerait ses places. On ne la lance alors que si
+     * elle est demandée explicitement (covoit.seatLedger.reconcileStandalone=true),
+     * à réserver aux déploiements à une seule instance.
+     */
+    private static boolean shouldReconcileSeatLedgers() {
+        if (!AppSettings.getBoolean("covoit.seatLedger.reconcileOnStartup", true)) {
+            return false;
+        }
+        if (MongoManager.supportsTransactions()) {
+            return true;
+        }
+        if (AppSettings.getBoolean("covoit.seatLedger.reconcileStandalone", false)) {
+            LOG.info("Réconciliation seatsUsed sans transactions (instance unique déclarée).");
+            return true;
+        }
+        LOG.info("Réconciliation seatsUsed ignorée: MongoDB sans transactions "
+                + "(activer covoit.seatLedger.reconcileStandalone pour une instance unique).");
+        return false;
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        RideCache cache = RideCache.shared();
+        if (cache.isEnabled()) {
+            LOG.info("Cache des trajets: " + cache.getHits() + " hit(s), " + cache.getMisses() + " miss(es)");
+        }
+        RideChangeListener.stop();
+        LatestRidesSnapshot.stop();
+        DaoExecutor.shutdown();
+        PasswordUtils.shutdown();
+    }
+}
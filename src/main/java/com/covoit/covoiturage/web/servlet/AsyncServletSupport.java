@@ -0,0 +1,52 @@
+package com.covoit.covoiturage.web.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+ * Petites aides pour les servlets asynchrones (req.startAsync()).
+ * */
+final class AsyncServletSupport {
+
+    private static final Logger LOG = Logger.getLogger(AsyncServletSupport.class.getName());
+
+    private AsyncServletSupport() {
+        // Constructeur privé
+    }
+
+    /**
+     * Retire les enveloppes CompletionException / ExecutionException
+     * pour retrouver l'exception d'origine (ex: BusinessException).
+     */
+    static Throwable unwrap(Throwable ex) {
+        Throwable t = ex;
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    /**
+     * Erreur inattendue (ex: MongoDB indisponible): on journalise,
+     * on répond 500 et on termine la requête asynchrone.
+     */
+    static void fail(AsyncContext async, Throwable ex) {
+        LOG.log(Level.SEVERE, "Erreur pendant le traitement asynchrone", unwrap(ex));
+        try {
+            HttpServletResponse resp = (HttpServletResponse) async.getResponse();
+            if (!resp.isCommitted()) {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Réponse d'erreur impossible", e);
+        } finally {
+            async.complete();
+        }
+    }
+}
@@ -1,31 +1,32 @@
 package com.covoit.covoiturage.web.servlet;
 
+import com.covoit.covoiturage.model.BookingPageView;
 import com.covoit.covoiturage.model.Ride;
 import com.covoit.covoiturage.model.User;
-import com.covoit.covoiturage.model.Booking;
 import com.covoit.covoiturage.service.BookingService;
 import com.covoit.covoiturage.service.RideService;
 import com.covoit.covoiturage.util.BusinessException;
+import com.covoit.covoiturage.web.filter.CurrentUser;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.ArrayList;
 
 /**
  * Gère la réservation d'un trajet.
  *  - doGET: affiche le détail du trajet et formulaire "nombre de places"
+ *    (asynchrone, voir BookingService.getBookingPageAsync)
  *  - doPOST: crée la réservation via BookingService
  *
  * URL: /book?rideId=...
  * Protégée par AuthFilter (l'utilisateur doit être connecté).
  */
-@WebServlet("/book")
+@WebServlet(urlPatterns = "/book", asyncSupported = true)
 public class BookingServlet extends HttpServlet {
 
     private static final long serialVersionUID = 1L;
@@ -37,11 +38,9 @@ public class BookingServlet extends HttpServlet {
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
-        HttpSession session = req.getSession(false);
-        User user = (session == null) ? null : (User) session.getAttribute("user");
+        CurrentUser current = CurrentUser.of(req);
 
-       
-        if (user == null) {
+        if (current == null) {
             resp.sendRedirect(req.getContextPath() + "/login");
             return;
         }
@@ -53,122 +52,49 @@ public class BookingServlet extends HttpServlet {
             return;
         }
 
-        try {
-            //  Récupérer le trajet
-            Ride ride = rideService.getById(rideId);
-            
-            if (ride == null) {
-                throw new BusinessException("Trajet introuvable.");
-            }
-
-            // Sous-trajet demandé par le passager (si on vient de /rides avec une recherche)
-            String fromParam = req.getParameter("from");
-            String toParam   = req.getParameter("to");  
-
-            // chemin complet du trajet 
-            List<String> fullPath = ride.getFullPath();  // méthode dans Ride
-            req.setAttribute("fullPath", fullPath);
-            
-            
-            Integer segmentFromIndex   = null;
-            Integer segmentToIndex     = null;
-            Integer segmentStopsCount  = null;
-            String  segmentFromCity    = null;
-            String  segmentToCity      = null;
-            Integer segmentRemainingSeats = null;
-            Integer segmentUnitPrice   = null;
-            boolean isSubRide          = false;
-
-            if (fullPath != null && !fullPath.isEmpty()) {
-
-                // on construit une version "normalisée" du chemin (tout en minuscule)
-                List<String> normPath = new ArrayList<>();
-                for (String c : fullPath) {
-                    String norm = Ride.normalizeCity(c); // trim et toLowerCase (la méthode statique)
-                    if (norm != null) {
-                        normPath.add(norm);
-                    }
-                }
-
-                String fromNorm = Ride.normalizeCity(fromParam);
-                String toNorm   = Ride.normalizeCity(toParam);
-
-                if (fromNorm != null) {
-                    int idx = normPath.indexOf(fromNorm);
-                    if (idx >= 0) {
-                        segmentFromIndex = idx;
+        // Sous-trajet demandé par le passager (si on vient de /rides avec une recherche)
+        String fromParam = req.getParameter("from");
+        String toParam   = req.getParameter("to");
+
+        req.setAttribute("rideId", rideId);
+
+        // Traitement asynchrone: le thread de Tomcat est libéré pendant les requêtes MongoDB
+        AsyncContext async = req.startAsync();
+
+        // trajet + réservations lus une seule fois, places du trajet complet
+        // et du sous-trajet calculées sur le même relevé
+        bookingService.getBookingPageAsync(rideId, fromParam, toParam)
+                .whenComplete((view, ex) -> {
+                    if (ex != null) {
+                        Throwable cause = AsyncServletSupport.unwrap(ex);
+                        if (!(cause instanceof BusinessException)) {
+                            AsyncServletSupport.fail(async, ex);
+                            return;
+                        }
+                        // Erreur (trajet introuvable, id invalide, etc.)
+                        req.setAttribute("error", cause.getMessage());
+                    } else {
+                        setViewAttributes(req, view);
                     }
-                }
-                if (toNorm != null) {
-                    int idx = normPath.lastIndexOf(toNorm);
-                    if (idx >= 0) {
-                        segmentToIndex = idx;
-                    }
-                }
-
-                // on vérifie que l'arrivée est bien après le départ
-                if (segmentFromIndex != null && segmentToIndex != null && segmentToIndex > segmentFromIndex) {
-                    
-                	segmentFromCity   = fullPath.get(segmentFromIndex);
-                    segmentToCity     = fullPath.get(segmentToIndex);
-                    // nombre d'arrêts intermédiaires entre les deux
-                    segmentStopsCount = segmentToIndex - segmentFromIndex - 1;
-                    
-                    // Verifie si c'est un sous-trajet
-                    if (!(segmentFromIndex == 0 && segmentToIndex == fullPath.size() - 1)) {
-                        isSubRide = true;
-                    }
-
-                    // places restantes sur ce sous-trajet
-                    segmentRemainingSeats = bookingService.getRemainingSeatsForSegment(
-                            ride,
-                            segmentFromIndex,
-                            segmentToIndex
-                    );
-                    
-                    
-                    Integer p = ride.getPricePerSeatForSegment(segmentFromIndex, segmentToIndex);
-                    if (p != null && p > 0) {
-                          segmentUnitPrice = p;
-                        
-                    }
-
-                   
-                } else {
-                    // indice incohérent => on ignore ce sous-trajet
-                    segmentFromIndex = null;
-                    segmentToIndex   = null;
-                }
-            }
-            
-            // Calcul des places restantes globales (trajet complet)
-            int remainingSeats = bookingService.getRemainingSeats(ride);
-
-            // Variables pour la JSP
-            req.setAttribute("ride", ride);
-            req.setAttribute("remainingSeats", remainingSeats);
-            req.setAttribute("rideId", rideId);
-
-            // informations du sous-trajet éventuel du passager
-            req.setAttribute("segmentFromCity", segmentFromCity);
-            req.setAttribute("segmentToCity", segmentToCity);
-            req.setAttribute("segmentStopsCount", segmentStopsCount);
-            req.setAttribute("segmentFromIndex", segmentFromIndex);
-            req.setAttribute("segmentToIndex", segmentToIndex);
-            req.setAttribute("segmentRemainingSeats", segmentRemainingSeats);
-            req.setAttribute("segmentUnitPrice", segmentUnitPrice);
-            req.setAttribute("isSubRide", isSubRide);
-
-            //redirige vers la JSP
-            req.getRequestDispatcher("/WEB-INF/jsp/booking.jsp")
-               .forward(req, resp);
+                    async.dispatch("/WEB-INF/jsp/booking.jsp");
+                });
+    }
 
-        } catch (BusinessException e) {
-            // Erreur (trajet introuvable, id invalide, etc.)
-            req.setAttribute("error", e.getMessage());
-            req.getRequestDispatcher("/WEB-INF/jsp/booking.jsp")
-               .forward(req, resp);
-        }
+    // Variables pour la JSP
+    private static void setViewAttributes(HttpServletRequest req, BookingPageView view) {
+        req.setAttribute("ride", view.getRide());
+        req.setAttribute("fullPath", view.getFullPath());
+        req.setAttribute("remainingSeats", view.getRemainingSeats());
+
+        // informations du sous-trajet éventuel du passager
+        req.setAttribute("segmentFromCity", view.getSegmentFromCity());
+        req.setAttribute("segmentToCity", view.getSegmentToCity());
+        req.setAttribute("segmentStopsCount", view.getSegmentStopsCount());
+        req.setAttribute("segmentFromIndex", view.getSegmentFromIndex());
+        req.setAttribute("segmentToIndex", view.getSegmentToIndex());
+        req.setAttribute("segmentRemainingSeats", view.getSegmentRemainingSeats());
+        req.setAttribute("segmentUnitPrice", view.getSegmentUnitPrice());
+        req.setAttribute("isSubRide", view.isSubRide());
     }
 
 
@@ -177,8 +103,7 @@ public class BookingServlet extends HttpServlet {
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
-        HttpSession session = req.getSession(false);
-        User user = (session == null) ? null : (User) session.getAttribute("user");
+        User user = CurrentUser.user(req);
 
         if (user == null) {
             resp.sendRedirect(req.getContextPath() + "/login");
@@ -235,7 +160,7 @@ public class BookingServlet extends HttpServlet {
             }
 
             // Création de la réservation (complète ou sous-trajet)
-            Booking booking = bookingService.createBookingForSegment(
+            bookingService.createBookingForSegment(
                     user,
                     ride,
                     fromIndex,
@@ -244,14 +169,6 @@ public class BookingServlet extends HttpServlet {
                     unitPrice
             );
 
-            // Message flash
-            String fromCity = (booking.getFromCity() != null) ? booking.getFromCity() : ride.getDepartureCityDisplay();
-            String toCity   = (booking.getToCity()   != null) ? booking.getToCity()   : ride.getArrivalCityDisplay();
-
-            session.setAttribute("flashMessage",
-                    "Réservation effectuée pour le trajet "
-                            + fromCity + " → " + toCity + ".");
-
             resp.sendRedirect(req.getContextPath() + "/myBookings");
             return;
                 
@@ -266,11 +183,11 @@ public class BookingServlet extends HttpServlet {
 
         // En cas d'erreur: on réaffiche la page de réservation
         try {
-            Ride ride = rideService.getById(rideId);
-            int remainingSeats = bookingService.getRemainingSeats(ride);
+            BookingPageView view = bookingService.getBookingPage(rideId, null, null);
 
-            req.setAttribute("ride", ride);
-            req.setAttribute("remainingSeats", remainingSeats);
+            req.setAttribute("ride", view.getRide());
+            req.setAttribute("fullPath", view.getFullPath());
+            req.setAttribute("remainingSeats", view.getRemainingSeats());
             req.setAttribute("rideId", rideId);
         } catch (BusinessException ignored) {
             // on ignore
@@ -3,12 +3,12 @@ package com.covoit.covoiturage.web.servlet;
 import com.covoit.covoiturage.model.User;
 import com.covoit.covoiturage.service.BookingService;
 import com.covoit.covoiturage.util.BusinessException;
+import com.covoit.covoiturage.web.filter.CurrentUser;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 
@@ -26,8 +26,7 @@ public class DriverBookingActionServlet extends HttpServlet {
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
-        HttpSession session = req.getSession(false);
-        User driver = (session == null) ? null : (User) session.getAttribute("user");
+        User driver = CurrentUser.user(req);
 
         if (driver == null) {
             resp.sendRedirect(req.getContextPath() + "/login");
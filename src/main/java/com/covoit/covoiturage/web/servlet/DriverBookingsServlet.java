@@ -1,85 +1,100 @@
 package com.covoit.covoiturage.web.servlet;
 
-import com.covoit.covoiturage.dao.BookingDao;
-import com.covoit.covoiturage.dao.RideDao;
-import com.covoit.covoiturage.dao.UserDao;
-import com.covoit.covoiturage.model.Booking;
-import com.covoit.covoiturage.model.Ride;
 import com.covoit.covoiturage.model.User;
+import com.covoit.covoiturage.service.BookingService;
+import com.covoit.covoiturage.util.BusinessException;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import com.covoit.covoiturage.model.DriverBookingView;
-
-
-//import org.bson.types.ObjectId;
+import com.covoit.covoiturage.web.filter.CurrentUser;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Liste les réservations concernant les trajets du conducteur.
+ * URL: /driver/bookings?status=PENDING&page=2
+ *  - status: filtre optionnel (PENDING, CONFIRMED, REJECTED, CANCELLED)
+ *  - page: numéro de page (à partir de 1)
+ * Les demandes PENDING sont affichées en premier.
+ * La servlet est asynchrone (voir BookingService.getDriverBookingsAsync).
  */
-@WebServlet("/driver/bookings")
+@WebServlet(urlPatterns = "/driver/bookings", asyncSupported = true)
 public class DriverBookingsServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
 
-    private final RideDao rideDao = new RideDao();
-    private final BookingDao bookingDao = new BookingDao();
-    private final UserDao userDao = new UserDao();
+    // nombre de demandes par page
+    private static final int PAGE_SIZE = 20;
+
+    private static final Set<String> STATUSES = Set.of("PENDING", "CONFIRMED", "REJECTED", "CANCELLED");
+
+    private final BookingService bookingService = new BookingService();
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
-        HttpSession session = req.getSession(false);
-        User driver = (session == null) ? null : (User) session.getAttribute("user");
+        User driver = CurrentUser.user(req);
 
         if (driver == null) {
             resp.sendRedirect(req.getContextPath() + "/login");
             return;
         }
 
-        // Récupérer tous les trajets de ce conducteur
-        //List<Ride> driverRides = new ArrayList<>();
-        // Petite méthode utilitaire dans RideDao à ajouter si tu veux :
-        // findByDriverId(ObjectId driverId)
-
-        // Si tu ne l'as pas encore, implémente-la comme dans BookingDao (findByPassengerId)
-
-        // Pour l'instant, on suppose qu'on a rideDao.findByDriverId(...)
-        // Sinon, tu peux le faire plus tard.
-
-        // Tous les trajets du conducteur
-        List<Ride> driverRides = rideDao.findByDriverId(driver.getId());
-        if (driverRides == null) {
-            driverRides = new ArrayList<>();
+        // Filtre de statut (ignoré s'il n'est pas reconnu)
+        String status = req.getParameter("status");
+        if (status == null || !STATUSES.contains(status.toUpperCase())) {
+            status = null;
+        } else {
+            status = status.toUpperCase();
         }
-        
-        // Construit la liste DriverBookingView -> envoyée à la JSP
-        List<DriverBookingView> views = new ArrayList<>();
-
-        for (Ride ride : driverRides) {
-            List<Booking> bookings = bookingDao.findByRideId(ride.getId());
-            if (bookings == null) continue;
-            
-            for (Booking b : bookings) {
-            	User passenger = userDao.findById(b.getPassengerId());
-                DriverBookingView v = new DriverBookingView();
-                v.setBooking(b);
-                v.setRide(ride);
-                v.setPassenger(passenger);
-
-                views.add(v);
+
+        int page = 1;
+        try {
+            String pageStr = req.getParameter("page");
+            if (pageStr != null && !pageStr.isBlank()) {
+                page = Math.max(1, Integer.parseInt(pageStr));
             }
+        } catch (NumberFormatException e) {
+            // page invalide -> première page
         }
 
-        req.setAttribute("driverBookings", views);
-        req.getRequestDispatcher("/WEB-INF/jsp/driver_bookings.jsp")
-           .forward(req, resp);
+        req.setAttribute("status", status);
+        req.setAttribute("page", page);
+
+        // Traitement asynchrone: le thread de Tomcat est libéré pendant les requêtes MongoDB
+        AsyncContext async = req.startAsync();
+
+        // on demande un élément de plus pour savoir s'il existe une page suivante
+        bookingService.getDriverBookingsAsync(driver, status, (page - 1) * PAGE_SIZE, PAGE_SIZE + 1)
+                .whenComplete((views, ex) -> {
+                    // Construit la liste DriverBookingView -> envoyée à la JSP
+                    List<DriverBookingView> shown = new ArrayList<>();
+                    boolean hasNextPage = false;
+
+                    if (ex != null) {
+                        Throwable cause = AsyncServletSupport.unwrap(ex);
+                        if (!(cause instanceof BusinessException)) {
+                            AsyncServletSupport.fail(async, ex);
+                            return;
+                        }
+                        req.setAttribute("error", cause.getMessage());
+                    } else if (views.size() > PAGE_SIZE) {
+                        hasNextPage = true;
+                        shown = views.subList(0, PAGE_SIZE);
+                    } else {
+                        shown = views;
+                    }
+
+                    req.setAttribute("driverBookings", shown);
+                    req.setAttribute("hasNextPage", hasNextPage);
+                    async.dispatch("/WEB-INF/jsp/driver_bookings.jsp");
+                });
     }
 }
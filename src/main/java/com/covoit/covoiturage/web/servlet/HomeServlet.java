@@ -1,7 +1,6 @@
 package com.covoit.covoiturage.web.servlet;
 
-import com.covoit.covoiturage.model.User;
-import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.model.RideSummary;
 import com.covoit.covoiturage.service.RideService;
 
 import jakarta.servlet.ServletException;
@@ -9,7 +8,6 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 import java.util.List;
@@ -29,21 +27,10 @@ public class HomeServlet extends HttpServlet {
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
-        // On peut récupérer l'utilisateur de la session si besoin
-        HttpSession session = req.getSession(false);
-        User user = null;
-        if (session != null) {
-            Object obj = session.getAttribute("user");
-            if (obj instanceof User) {
-                user = (User) obj;
-            }
-        }
-
-        // On pose l'utilisateur en attribut de la requête 
-        req.setAttribute("currentUser", user);
-
-       // Quelques trajets récents pour la page d'accueil
-        List<Ride> latestRides = rideService.getLatestRides(6);
+        // L'utilisateur connecté est déjà en attribut de requête "currentUser" (CurrentUserFilter)
+
+       // Quelques trajets récents pour la page d'accueil (lecture allégée, voir RideSummary)
+        List<RideSummary> latestRides = rideService.getLatestRideSummaries(6);
         req.setAttribute("latestRides", latestRides);
         
         // On redirige à la JSP home
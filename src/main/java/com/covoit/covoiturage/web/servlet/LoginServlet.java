@@ -5,19 +5,21 @@ package com.covoit.covoiturage.web.servlet;
 import com.covoit.covoiturage.model.User;
 import com.covoit.covoiturage.service.UserService;
 import com.covoit.covoiturage.util.BusinessException;
+import com.covoit.covoiturage.util.TooManyRequestsException;
+import com.covoit.covoiturage.web.filter.CurrentUser;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 
 /**
  * Gère la connexion d'un utilisateur existant.
  * - GET: affiche le formulaire de login
- * - POST: appelle UserService.login(...) et stocke l'utilisateur en session
+ * - POST: appelle UserService.login(...) et pose le cookie de connexion (CurrentUser)
+ *         (HTTP 429 si trop de tentatives ou calcul des mots de passe saturé)
  */
 @WebServlet("/login")
 public class LoginServlet extends HttpServlet {
@@ -44,15 +46,22 @@ public class LoginServlet extends HttpServlet {
 
         try {
             // Vérifie les identifiants côté service
-            User user = userService.login(email, password);
+            User user = userService.login(email, password, req.getRemoteAddr());
 
-            // Si OK : on crée / récupère la session
-            HttpSession session = req.getSession(true);
-            session.setAttribute("user", user);
+            // Si OK : cookie de connexion signé (pas de session côté serveur)
+            CurrentUser.signIn(req, resp, user);
 
             // Redirection vers la page d'accueil
             resp.sendRedirect(req.getContextPath() + "/home");
 
+        } catch (TooManyRequestsException e) {
+            // Trop de tentatives: refus rapide, le navigateur peut réessayer plus tard
+            resp.setStatus(429);
+            resp.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            req.setAttribute("error", e.getMessage());
+            req.getRequestDispatcher("/WEB-INF/jsp/login.jsp")
+               .forward(req, resp);
+
         } catch (BusinessException e) {
             // Identifiants invalides ou champs manquants
             req.setAttribute("error", e.getMessage());
@@ -1,5 +1,6 @@
 package com.covoit.covoiturage.web.servlet;
 
+import com.covoit.covoiturage.web.filter.CurrentUser;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -11,7 +12,7 @@ import java.io.IOException;
 
 /**
  * chemin de Déconnexion de l'utilisateur :
- *  - invalide la session
+ *  - efface le cookie de connexion (et invalide la session éventuelle)
  *  - redirige vers /home
  */
 @WebServlet("/logout")
@@ -23,6 +24,9 @@ public class LogoutServlet extends HttpServlet {
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
+        CurrentUser.signOut(req, resp);
+
+        // ancienne session éventuelle (connexions d'avant le cookie signé)
         HttpSession session = req.getSession(false); // false -> ne crée pas de nouvelle session
         if (session != null) {
             session.invalidate();
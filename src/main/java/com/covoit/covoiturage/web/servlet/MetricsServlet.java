@@ -0,0 +1,83 @@
+package com.covoit.covoiturage.web.servlet;
+
+import com.covoit.covoiturage.config.AppSettings;
+import com.covoit.covoiturage.dao.RideCache;
+import com.covoit.covoiturage.dao.RideChangeListener;
+import com.covoit.covoiturage.dao.RideSearchCache;
+import com.covoit.covoiturage.service.BookingService;
+import com.covoit.covoiturage.util.PasswordUtils;
+import com.covoit.covoiturage.util.StripedLocks;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Compteurs des caches, des verrous par trajet et du pool BCrypt de l'application, au format texte de Prometheus.
+ * URL: /metrics
+ *
+ * Désactivé par défaut (404): les compteurs du pool BCrypt et des refus de connexion
+ * aideraient à régler une attaque sur /login. À activer avec covoit.metrics.enabled=true
+ * sur un port qui n'est pas exposé publiquement (nginx ne transmet pas /metrics).
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final boolean ENABLED = AppSettings.getBoolean("covoit.metrics.enabled", false);
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+
+        if (!ENABLED) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        resp.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+
+        PrintWriter out = resp.getWriter();
+
+        RideCache rides = RideCache.shared();
+        counter(out, "covoit_ride_cache_hits_total", rides.getHits());
+        counter(out, "covoit_ride_cache_misses_total", rides.getMisses());
+        gauge(out, "covoit_ride_cache_entries", rides.size());
+
+        RideSearchCache searches = RideSearchCache.shared();
+        counter(out, "covoit_search_cache_hits_total", searches.getHits());
+        counter(out, "covoit_search_cache_misses_total", searches.getMisses());
+        counter(out, "covoit_search_cache_oversized_total", searches.getOversized());
+        counter(out, "covoit_search_cache_invalidations_total", searches.getInvalidations());
+        gauge(out, "covoit_search_cache_entries", searches.size());
+
+        counter(out, "covoit_ride_change_events_total", RideChangeListener.getEvents());
+        gauge(out, "covoit_ride_change_stream_active", RideChangeListener.isActive() ? 1 : 0);
+
+        StripedLocks locks = BookingService.rideLocks();
+        counter(out, "covoit_ride_lock_acquisitions_total", locks.getAcquisitions());
+        counter(out, "covoit_ride_lock_contended_total", locks.getContended());
+        counter(out, "covoit_ride_lock_wait_milliseconds_total", locks.getWaitMillis());
+        gauge(out, "covoit_ride_lock_max_wait_milliseconds", locks.getMaxWaitMillis());
+
+        counter(out, "covoit_bcrypt_rejected_total", PasswordUtils.getRejected());
+        gauge(out, "covoit_bcrypt_active", PasswordUtils.getActive());
+        gauge(out, "covoit_bcrypt_queued", PasswordUtils.getQueued());
+    }
+
+    private static void counter(PrintWriter out, String name, long value) {
+        out.println("# TYPE " + name + " counter");
+        out.println(name + " " + value);
+    }
+
+    private static void gauge(PrintWriter out, String name, long value) {
+        out.println("# TYPE " + name + " gauge");
+        out.println(name + " " + value);
+    }
+}
@@ -1,20 +1,15 @@
 package com.covoit.covoiturage.web.servlet;
 
-import com.covoit.covoiturage.dao.RideDao;
-
-import com.covoit.covoiturage.model.Booking;
 import com.covoit.covoiturage.model.BookingWithRide;
-import com.covoit.covoiturage.model.Ride;
 import com.covoit.covoiturage.model.User;
 import com.covoit.covoiturage.service.BookingService;
 import com.covoit.covoiturage.util.BusinessException;
+import com.covoit.covoiturage.web.filter.CurrentUser;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
-//import org.bson.types.ObjectId;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -22,22 +17,25 @@ import java.util.List;
 
 /**
  * Affiche la liste des réservations de l'utilisateur connecté.
- * URL : /myBookings
+ * URL : /myBookings?upcoming=true&page=2
+ *  - upcoming: seulement les réservations dont le trajet est à venir
+ *  - page: numéro de page (à partir de 1)
  */
 @WebServlet({"/myBookings", "/my_bookings"})
 public class MyBookingsServlet extends HttpServlet {
 
     private static final long serialVersionUID = 1L;
 
+    // nombre de réservations par page
+    private static final int PAGE_SIZE = 20;
+
     private final BookingService bookingService = new BookingService();
-    private final RideDao rideDao = new RideDao();
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
-        HttpSession session = req.getSession(false);
-        User user = (session == null) ? null : (User) session.getAttribute("user");
+        User user = CurrentUser.user(req);
 
         // AuthFilter est censé déjà filtrer, mais on re-vérifie par sécurité
         if (user == null) {
@@ -45,18 +43,29 @@ public class MyBookingsServlet extends HttpServlet {
             return;
         }
 
+        boolean upcomingOnly = "true".equalsIgnoreCase(req.getParameter("upcoming"));
+
+        int page = 1;
+        try {
+            String pageStr = req.getParameter("page");
+            if (pageStr != null && !pageStr.isBlank()) {
+                page = Math.max(1, Integer.parseInt(pageStr));
+            }
+        } catch (NumberFormatException e) {
+            // page invalide -> première page
+        }
+
         String error = null;
         List<BookingWithRide> list = new ArrayList<>();
+        boolean hasNextPage = false;
 
         try {
-            List<Booking> bookings = bookingService.getBookingsForUser(user);
-
-            for (Booking b : bookings) {
-                Ride ride = rideDao.findById(b.getRideId());
-                BookingWithRide bwr = new BookingWithRide();
-                bwr.setBooking(b);
-                bwr.setRide(ride);
-                list.add(bwr);
+            // on demande un élément de plus pour savoir s'il existe une page suivante
+            list = bookingService.getBookingsWithRideForUser(user, upcomingOnly,
+                    (page - 1) * PAGE_SIZE, PAGE_SIZE + 1);
+            if (list.size() > PAGE_SIZE) {
+                hasNextPage = true;
+                list = list.subList(0, PAGE_SIZE);
             }
 
         } catch (BusinessException e) {
@@ -65,6 +74,9 @@ public class MyBookingsServlet extends HttpServlet {
 
         req.setAttribute("error", error);
         req.setAttribute("bookingsWithRide", list);
+        req.setAttribute("upcomingOnly", upcomingOnly);
+        req.setAttribute("page", page);
+        req.setAttribute("hasNextPage", hasNextPage);
 
         req.getRequestDispatcher("/WEB-INF/jsp/my_bookings.jsp")
            .forward(req, resp);
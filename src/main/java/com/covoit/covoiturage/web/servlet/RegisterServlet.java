@@ -6,6 +6,7 @@ package com.covoit.covoiturage.web.servlet;
 //import com.covoit.covoiturage.dao.UserDao;
 import com.covoit.covoiturage.service.UserService;
 import com.covoit.covoiturage.util.BusinessException;
+import com.covoit.covoiturage.util.TooManyRequestsException;
 import com.covoit.covoiturage.model.User;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -66,6 +67,12 @@ public class RegisterServlet extends HttpServlet {
             resp.sendRedirect(req.getContextPath() + "/login");
 
         } catch (BusinessException e) {
+            // Calcul des mots de passe saturé: HTTP 429, le formulaire est réaffiché
+            if (e instanceof TooManyRequestsException tooMany) {
+                resp.setStatus(429);
+                resp.setHeader("Retry-After", String.valueOf(tooMany.getRetryAfterSeconds()));
+            }
+
             // Erreur métier (champs vides, email déjà utilisé, etc.)
             // On renvoie sur le formulaire avec un message d'erreur
             req.setAttribute("error", e.getMessage());
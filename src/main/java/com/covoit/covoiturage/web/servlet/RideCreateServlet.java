@@ -3,12 +3,12 @@ package com.covoit.covoiturage.web.servlet;
 import com.covoit.covoiturage.model.User;
 import com.covoit.covoiturage.service.RideService;
 import com.covoit.covoiturage.util.BusinessException;
+import com.covoit.covoiturage.web.filter.CurrentUser;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 import java.time.LocalDate;
@@ -46,8 +46,7 @@ public class RideCreateServlet extends HttpServlet {
 
         req.setCharacterEncoding("UTF-8");
 
-        HttpSession session = req.getSession(false);
-        User user = (session == null) ? null : (User) session.getAttribute("user");
+        User user = CurrentUser.user(req);
         
         // si l'utilisateur n'est pas connecté alors on le renvoie à la page login
         if (user == null) {
@@ -1,8 +1,10 @@
 package com.covoit.covoiturage.web.servlet;
 
 import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.service.BookingService;
 import com.covoit.covoiturage.service.RideService;
 import com.covoit.covoiturage.util.BusinessException;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -11,19 +13,34 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Affiche la liste des trajets :
- *  - sans filtres: derniers trajets à venir
+ *  - sans filtres: prochains trajets, page par page
+ *    (/rides?after=... : curseur de la page précédente, voir RideCursor)
  *  - avec départ, arrivée, date: résultats de recherche
+ *    (les trajets complets sur le sous-trajet recherché sont masqués)
+ *
+ * Les places restantes de tous les trajets affichés sont calculées en une fois
+ * (BookingService.getRemainingSeatsForRidesAsync) pour éviter une requête par carte.
+ * La servlet est asynchrone: la JSP est affichée quand les requêtes sont terminées.
  */
-@WebServlet("/rides")
+@WebServlet(urlPatterns = "/rides", asyncSupported = true)
 public class RideListServlet extends HttpServlet {
 
     private static final long serialVersionUID = 1L;
+
+    // nombre de trajets par page (liste sans recherche)
+    private static final int PAGE_SIZE = 20;
+
     private final RideService rideService = new RideService();
+    private final BookingService bookingService = new BookingService();
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
@@ -35,38 +52,77 @@ public class RideListServlet extends HttpServlet {
         String arrivalCity   = req.getParameter("arrivalCity");
         String dateStr       = req.getParameter("date"); // yyyy-MM-dd
 
-        List<Ride> rides;
-        String error = null;
         boolean hasSearch = departureCity != null && !departureCity.isBlank()
                 && arrivalCity != null && !arrivalCity.isBlank()
                 && dateStr != null && !dateStr.isBlank();
 
+        // Renvoyer les critères pour les garder dans le formulaire
+        req.setAttribute("departureCity", departureCity);
+        req.setAttribute("arrivalCity", arrivalCity);
+        req.setAttribute("date", dateStr);
+
+        // Traitement asynchrone: le thread de Tomcat est libéré pendant les requêtes MongoDB
+        AsyncContext async = req.startAsync();
+
+        CompletionStage<List<Ride>> ridesStage;
         if (hasSearch) {
             // Cas recherche
-            try {
-                LocalDate date = LocalDate.parse(dateStr);
-                rides = rideService.searchRides(departureCity, arrivalCity, date);
-            } catch (BusinessException e) {
-                error = e.getMessage();
-                rides = Collections.emptyList();
-            } catch (Exception e) {
-                error = "Paramètres de recherche invalides.";
-                rides = Collections.emptyList();
-            }
+            ridesStage = searchRides(departureCity, arrivalCity, dateStr)
+                    .exceptionally(ex -> {
+                        Throwable cause = AsyncServletSupport.unwrap(ex);
+                        req.setAttribute("error", (cause instanceof BusinessException)
+                                ? cause.getMessage()
+                                : "Paramètres de recherche invalides.");
+                        return Collections.emptyList();
+                    });
         } else {
-            // Cas liste simple (derniers trajets à venir)
-            rides = rideService.getLatestRides(20);
+            // Cas liste simple (prochains trajets, pagination par curseur)
+            String after = req.getParameter("after");
+            req.setAttribute("after", after);
+            ridesStage = rideService.getUpcomingRidesAsync(after, PAGE_SIZE)
+                    .thenApply(page -> {
+                        req.setAttribute("nextCursor", page.getNextCursor());
+                        return page.getRides();
+                    });
         }
 
-        req.setAttribute("rides", rides);
-        req.setAttribute("error", error);
-
-        // Renvoyer les critères pour les garder dans le formulaire
-        req.setAttribute("departureCity", departureCity);
-        req.setAttribute("arrivalCity", arrivalCity);
-        req.setAttribute("date", dateStr);
+        ridesStage
+                .thenCompose(rides ->
+                        // Places restantes pour chaque trajet affiché (sur le sous-trajet recherché)
+                        bookingService.getRemainingSeatsForRidesAsync(
+                                rides,
+                                hasSearch ? departureCity : null,
+                                hasSearch ? arrivalCity : null)
+                        .thenAccept(remainingSeats -> {
+                            List<Ride> shown = rides;
+                            if (hasSearch) {
+                                // on masque les trajets déjà complets
+                                shown = new ArrayList<>();
+                                for (Ride r : rides) {
+                                    if (remainingSeats.getOrDefault(r.getId(), 0) > 0) {
+                                        shown.add(r);
+                                    }
+                                }
+                            }
+                            req.setAttribute("rides", shown);
+                            req.setAttribute("remainingSeats", remainingSeats);
+                        }))
+                .whenComplete((ignored, ex) -> {
+                    if (ex != null) {
+                        AsyncServletSupport.fail(async, ex);
+                    } else {
+                        async.dispatch("/WEB-INF/jsp/rides.jsp");
+                    }
+                });
+    }
 
-        req.getRequestDispatcher("/WEB-INF/jsp/rides.jsp")
-           .forward(req, resp);
+    // Recherche: une date illisible donne un CompletionStage en échec, comme une saisie incomplète
+    private CompletionStage<List<Ride>> searchRides(String departureCity, String arrivalCity, String dateStr) {
+        try {
+            LocalDate date = LocalDate.parse(dateStr);
+            return rideService.searchRidesAsync(departureCity, arrivalCity, date);
+        } catch (DateTimeParseException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 }
@@ -1,23 +1,25 @@
 package com.covoit.covoiturage.web.servlet;
 
+import com.covoit.covoiturage.config.AppSettings;
 import com.covoit.covoiturage.dao.BookingDao;
 import com.covoit.covoiturage.model.Booking;
-import com.covoit.covoiturage.model.User;
-import com.google.zxing.BarcodeFormat;
+import com.covoit.covoiturage.util.QrCodeRenderer;
+import com.covoit.covoiturage.util.TtlLruCache;
+import com.covoit.covoiturage.web.filter.CurrentUser;
 import com.google.zxing.WriterException;
-import com.google.zxing.qrcode.QRCodeWriter;
-import com.google.zxing.common.BitMatrix;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import org.bson.types.ObjectId;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
 
 /**
  * Génère le QR Code (PNG) pour un ticket donné.
@@ -28,16 +30,26 @@ public class TicketQrServlet extends HttpServlet {
 
     private static final long serialVersionUID = 1L;
 
+    // taille de l'image en pixels
+    private static final int SIZE = 250;
+
+    private static final int MAX_AGE_SECONDS = 86400;
+
     private final BookingDao bookingDao = new BookingDao();
 
+    // PNG déjà générés, par code de ticket (borné en taille et en durée)
+    private final TtlLruCache<String, byte[]> pngCache = new TtlLruCache<>(
+            AppSettings.getInt("covoit.qr.cache.size", 1000),
+            Duration.ofMinutes(AppSettings.getInt("covoit.qr.cache.ttlMinutes", 60)));
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
-        HttpSession session = req.getSession(false);
-        User user = (session == null) ? null : (User) session.getAttribute("user");
+        // seul l'id de l'utilisateur connecté est utile ici (pas de lecture en base)
+        CurrentUser current = CurrentUser.of(req);
 
-        if (user == null) {
+        if (current == null) {
             resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
             return;
         }
@@ -50,10 +62,7 @@ public class TicketQrServlet extends HttpServlet {
 
         try {
             ObjectId bookingId = new ObjectId(bookingIdStr);
-            Booking booking = bookingDao.findByPassengerId(user.getId()).stream()
-                    .filter(b -> bookingId.equals(b.getId()))
-                    .findFirst()
-                    .orElse(null);
+            Booking booking = bookingDao.findByIdAndPassenger(bookingId, current.getId());
 
             if (booking == null || booking.getTicketCode() == null) {
                 resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
@@ -64,27 +73,58 @@ public class TicketQrServlet extends HttpServlet {
                 return;
             }
 
-            
+            String ticketCode = booking.getTicketCode(); // contenu du QR
+            String etag = etagFor(ticketCode);
 
-            String data = booking.getTicketCode(); // contenu du QR
+            // l'image d'un ticket ne change jamais: le navigateur peut la garder
+            resp.setHeader("ETag", etag);
+            resp.setHeader("Cache-Control", "private, max-age=" + MAX_AGE_SECONDS);
 
-            int size = 250;
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(data, BarcodeFormat.QR_CODE, size, size);
+            if (matchesEtag(req.getHeader("If-None-Match"), etag)) {
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
 
-            BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
-            for (int x = 0; x < size; x++) {
-                for (int y = 0; y < size; y++) {
-                    int grayValue = (bitMatrix.get(x, y) ? 0 : 0xFFFFFF);
-                    image.setRGB(x, y, grayValue);
-                }
+            byte[] png = pngCache.get(ticketCode);
+            if (png == null) {
+                png = QrCodeRenderer.renderPng(ticketCode, SIZE);
+                pngCache.put(ticketCode, png);
             }
 
             resp.setContentType("image/png");
-            ImageIO.write(image, "PNG", resp.getOutputStream());
+            resp.setContentLength(png.length);
+            resp.getOutputStream().write(png);
 
         } catch (IllegalArgumentException | WriterException e) {
             resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
         }
     }
+
+    // ETag fort calculé à partir du code du ticket (sans l'exposer tel quel)
+    static String etagFor(String ticketCode) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(("qr-" + SIZE + ":" + ticketCode).getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    // If-None-Match peut contenir plusieurs ETag séparés par des virgules, ou "*"
+    static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) {
+                c = c.substring(2);
+            }
+            if (c.equals("*") || c.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
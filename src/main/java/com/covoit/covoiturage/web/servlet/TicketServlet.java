@@ -4,14 +4,13 @@ import com.covoit.covoiturage.dao.BookingDao;
 import com.covoit.covoiturage.dao.RideDao;
 import com.covoit.covoiturage.model.Booking;
 import com.covoit.covoiturage.model.Ride;
-import com.covoit.covoiturage.model.User;
 import com.covoit.covoiturage.util.BusinessException;
+import com.covoit.covoiturage.web.filter.CurrentUser;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import org.bson.types.ObjectId;
 
 import java.io.IOException;
@@ -32,10 +31,10 @@ public class TicketServlet extends HttpServlet {
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
-        HttpSession session = req.getSession(false);
-        User user = (session == null) ? null : (User) session.getAttribute("user");
+        // seul l'id de l'utilisateur connecté est utile ici (pas de lecture en base)
+        CurrentUser current = CurrentUser.of(req);
 
-        if (user == null) {
+        if (current == null) {
             resp.sendRedirect(req.getContextPath() + "/login");
             return;
         }
@@ -48,10 +47,7 @@ public class TicketServlet extends HttpServlet {
 
         try {
             ObjectId bookingId = new ObjectId(bookingIdStr);
-            Booking booking = bookingDao.findByPassengerId(user.getId()).stream()
-                    .filter(b -> bookingId.equals(b.getId()))
-                    .findFirst()
-                    .orElse(null);
+            Booking booking = bookingDao.findByIdAndPassenger(bookingId, current.getId());
 
             if (booking == null) {
                 throw new BusinessException("Réservation introuvable pour cet utilisateur.");
@@ -1,4 +1,4 @@
-<%@ page language="java" contentType="text/html;charset=UTF-8"
+<%@ page language="java" session="false" contentType="text/html;charset=UTF-8"
     pageEncoding="UTF-8"%>
     
 <%-- 
@@ -26,6 +26,25 @@
 
         <h2 class="mb-4">Demandes de réservation pour mes trajets</h2>
 
+        <c:if test="${not empty error}">
+            <div class="alert alert-danger" role="alert">
+                ${error}
+            </div>
+        </c:if>
+
+        <%-- Filtre par statut (les demandes en attente sont toujours en tête de liste) --%>
+        <c:url var="baseUrl" value="/driver/bookings" />
+        <div class="btn-group btn-group-sm mb-3" role="group">
+            <a href="${baseUrl}"
+               class="btn ${empty status ? 'btn-primary' : 'btn-outline-primary'}">Toutes</a>
+            <a href="${baseUrl}?status=PENDING"
+               class="btn ${status == 'PENDING' ? 'btn-primary' : 'btn-outline-primary'}">En attente</a>
+            <a href="${baseUrl}?status=CONFIRMED"
+               class="btn ${status == 'CONFIRMED' ? 'btn-primary' : 'btn-outline-primary'}">Confirmées</a>
+            <a href="${baseUrl}?status=REJECTED"
+               class="btn ${status == 'REJECTED' ? 'btn-primary' : 'btn-outline-primary'}">Refusées</a>
+        </div>
+
         <%-- 
             driverBookings est une liste de vues fabriquées par DriverBookingsServlet:
             - v.booking: la réservation
@@ -227,6 +246,30 @@
             </c:otherwise>
         </c:choose>
 
+        <%-- Pagination --%>
+        <c:if test="${page > 1 or hasNextPage}">
+            <nav class="mt-3 d-flex justify-content-between">
+                <div>
+                    <c:if test="${page > 1}">
+                        <c:url var="prevUrl" value="/driver/bookings">
+                            <c:if test="${not empty status}"><c:param name="status" value="${status}"/></c:if>
+                            <c:param name="page" value="${page - 1}"/>
+                        </c:url>
+                        <a href="${prevUrl}" class="btn btn-sm btn-outline-secondary">&larr; Page précédente</a>
+                    </c:if>
+                </div>
+                <div>
+                    <c:if test="${hasNextPage}">
+                        <c:url var="nextUrl" value="/driver/bookings">
+                            <c:if test="${not empty status}"><c:param name="status" value="${status}"/></c:if>
+                            <c:param name="page" value="${page + 1}"/>
+                        </c:url>
+                        <a href="${nextUrl}" class="btn btn-sm btn-outline-secondary">Page suivante &rarr;</a>
+                    </c:if>
+                </div>
+            </nav>
+        </c:if>
+
     </div>
 </div>
 
@@ -1,4 +1,4 @@
-<%@ page language="java" contentType="text/html;charset=UTF-8"
+<%@ page language="java" session="false" contentType="text/html;charset=UTF-8"
     pageEncoding="UTF-8"%>
     
     
@@ -66,7 +66,7 @@
 
                         <%-- Si connecté alors redirige vers le bouton "Proposer un trajet", sinon "Créer un compte" --%>
                         <c:choose>
-                            <c:when test="${not empty sessionScope.user}">
+                            <c:when test="${not empty requestScope.currentUser}">
                                 <a href="${pageContext.request.contextPath}/rides/new"
                                    class="btn btn-outline-light btn-lg">
                                     Proposer un trajet
@@ -88,8 +88,8 @@
                         <p class="mb-2">
                             <strong>
                                 <c:choose>
-                                    <c:when test="${not empty sessionScope.user}">
-                                        Ravi de te revoir, ${sessionScope.user.name}
+                                    <c:when test="${not empty requestScope.currentUser}">
+                                        Ravi de te revoir, ${requestScope.currentUser.name}
                                     </c:when>
                                     <c:otherwise>
                                         Prêt à partir ?
@@ -1,4 +1,4 @@
-<%@ page language="java" contentType="text/html;charset=UTF-8"
+<%@ page language="java" session="false" contentType="text/html;charset=UTF-8"
     pageEncoding="UTF-8"%>  
    
 <%-- 
@@ -24,6 +24,15 @@
 
         <h2 class="mb-4">Mes réservations</h2>
 
+        <%-- Filtre: toutes les réservations ou seulement les trajets à venir --%>
+        <c:url var="baseUrl" value="/myBookings" />
+        <div class="btn-group btn-group-sm mb-3" role="group">
+            <a href="${baseUrl}"
+               class="btn ${upcomingOnly ? 'btn-outline-primary' : 'btn-primary'}">Toutes</a>
+            <a href="${baseUrl}?upcoming=true"
+               class="btn ${upcomingOnly ? 'btn-primary' : 'btn-outline-primary'}">À venir</a>
+        </div>
+
         <%-- Message d'erreur général --%>
         <c:if test="${not empty error}">
             <div class="alert alert-danger" role="alert">
@@ -187,6 +196,30 @@
             </c:otherwise>
         </c:choose>
 
+        <%-- Pagination --%>
+        <c:if test="${page > 1 or hasNextPage}">
+            <nav class="mt-3 d-flex justify-content-between">
+                <div>
+                    <c:if test="${page > 1}">
+                        <c:url var="prevUrl" value="/myBookings">
+                            <c:if test="${upcomingOnly}"><c:param name="upcoming" value="true"/></c:if>
+                            <c:param name="page" value="${page - 1}"/>
+                        </c:url>
+                        <a href="${prevUrl}" class="btn btn-sm btn-outline-secondary">&larr; Page précédente</a>
+                    </c:if>
+                </div>
+                <div>
+                    <c:if test="${hasNextPage}">
+                        <c:url var="nextUrl" value="/myBookings">
+                            <c:if test="${upcomingOnly}"><c:param name="upcoming" value="true"/></c:if>
+                            <c:param name="page" value="${page + 1}"/>
+                        </c:url>
+                        <a href="${nextUrl}" class="btn btn-sm btn-outline-secondary">Page suivante &rarr;</a>
+                    </c:if>
+                </div>
+            </nav>
+        </c:if>
+
     </div>
 </div>
 
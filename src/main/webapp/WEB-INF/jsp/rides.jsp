@@ -1,4 +1,4 @@
-<%@ page language="java" contentType="text/html;charset=UTF-8"
+<%@ page language="java" session="false" contentType="text/html;charset=UTF-8"
     pageEncoding="UTF-8" %>
     
 <%@ taglib prefix="c"   uri="jakarta.tags.core" %>
@@ -127,13 +127,29 @@
                                     </c:if>
 
                                     <div class="mt-auto d-flex justify-content-between align-items-center">
-                                        <span class="badge bg-light text-dark border">
-                                            Trajet disponible
-                                        </span>
+                                        <%-- Places restantes (calculées en une fois par RideListServlet) --%>
+                                        <c:set var="remaining" value="${remainingSeats[r.id]}" />
+                                        <c:choose>
+                                            <c:when test="${empty remaining}">
+                                                <span class="badge bg-light text-dark border">
+                                                    Trajet disponible
+                                                </span>
+                                            </c:when>
+                                            <c:when test="${remaining > 0}">
+                                                <span class="badge bg-light text-dark border">
+                                                    ${remaining} place(s) restante(s)
+                                                </span>
+                                            </c:when>
+                                            <c:otherwise>
+                                                <span class="badge bg-secondary">
+                                                    Complet
+                                                </span>
+                                            </c:otherwise>
+                                        </c:choose>
 
                                         <c:choose>
                                             <%-- Utilisateur NON connecté --%>
-                                            <c:when test="${empty sessionScope.user}">
+                                            <c:when test="${empty requestScope.currentUser}">
                                                 <a href="${pageContext.request.contextPath}/login"
                                                    class="btn btn-sm btn-outline-primary">
                                                     Se connecter pour réserver
@@ -145,8 +161,8 @@
                                             <c:otherwise>
 											    <c:choose>
 											        <%-- Cas où l'utilisateur est le conducteur du trajet --%>
-											        <c:when test="${not empty r.driverId and not empty sessionScope.user 
-											                       and r.driverId == sessionScope.user.id}">
+											        <c:when test="${not empty r.driverId and not empty requestScope.currentUser 
+											                       and r.driverId == requestScope.currentUser.id}">
 											            <span class="badge bg-secondary">
 											                C'est ton trajet
 											            </span>
@@ -188,6 +204,25 @@
             </c:otherwise>
         </c:choose>
 
+        <%-- Pagination (liste sans recherche): curseur de la page suivante --%>
+        <c:if test="${not empty after or not empty nextCursor}">
+            <nav class="mt-3 d-flex justify-content-between">
+                <div>
+                    <c:if test="${not empty after}">
+                        <a href="${pageContext.request.contextPath}/rides" class="btn btn-sm btn-outline-secondary">&larr; Premiers trajets</a>
+                    </c:if>
+                </div>
+                <div>
+                    <c:if test="${not empty nextCursor}">
+                        <c:url var="nextUrl" value="/rides">
+                            <c:param name="after" value="${nextCursor}"/>
+                        </c:url>
+                        <a href="${nextUrl}" class="btn btn-sm btn-outline-secondary">Trajets suivants &rarr;</a>
+                    </c:if>
+                </div>
+            </nav>
+        </c:if>
+
     </div>
 </div>
 
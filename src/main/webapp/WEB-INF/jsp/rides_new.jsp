@@ -1,4 +1,4 @@
-<%@ page language="java" contentType="text/html;charset=UTF-8"
+<%@ page language="java" session="false" contentType="text/html;charset=UTF-8"
     pageEncoding="UTF-8"%>
 
 <%-- Page: rides_new.jsp --%>
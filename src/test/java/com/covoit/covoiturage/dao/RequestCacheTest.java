@@ -0,0 +1,95 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.model.Ride;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur le cache de premier niveau d'une requête (RequestCache).
+ */
+class RequestCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<ObjectId, Ride> loader = id -> {
+        loads.incrementAndGet();
+        Ride ride = new Ride();
+        ride.setId(id);
+        return ride;
+    };
+
+    @AfterEach
+    void unbind() {
+        RequestCache.bind(null);
+    }
+
+    /**
+     * Cas 1: pas de cache ouvert (hors requête)
+     *  alors chaque findById lit la base.
+     */
+    @Test
+    void givenNoCache_whenLoadTwice_thenLoaderCalledTwice() {
+        ObjectId id = new ObjectId();
+
+        RequestCache.ride(id, loader);
+        RequestCache.ride(id, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Cas 2: cache ouvert
+     *  alors le même id n'est lu qu'une fois et le même objet est renvoyé.
+     */
+    @Test
+    void givenCache_whenLoadTwice_thenSameInstanceAndSingleLoad() {
+        RequestCache.bind(new RequestCache());
+        ObjectId id = new ObjectId();
+
+        Ride first = RequestCache.ride(id, loader);
+        Ride second = RequestCache.ride(id, loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Cas 3: le trajet est modifié en base (evictRide)
+     *  alors il est relu au prochain appel.
+     */
+    @Test
+    void givenEvictedRide_whenLoadAgain_thenReloaded() {
+        RequestCache.bind(new RequestCache());
+        ObjectId id = new ObjectId();
+
+        Ride first = RequestCache.ride(id, loader);
+        RequestCache.evictRide(id);
+        Ride second = RequestCache.ride(id, loader);
+
+        assertNotSame(first, second);
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Cas 4: appel asynchrone via DaoExecutor
+     *  alors la tâche partage le cache de la requête qui l'a lancée.
+     */
+    @Test
+    void givenCache_whenLoadFromDaoExecutor_thenCacheShared() {
+        RequestCache.bind(new RequestCache());
+        ObjectId id = new ObjectId();
+
+        Ride local = RequestCache.ride(id, loader);
+        CompletableFuture<Ride> async = DaoExecutor.supply(() -> RequestCache.ride(id, loader));
+
+        assertSame(local, async.join());
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,137 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.model.Ride;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur le cache partagé des trajets (RideCache).
+ */
+class RideCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<ObjectId, Ride> loader = id -> {
+        loads.incrementAndGet();
+        return newRide(id);
+    };
+
+    private static Ride newRide(ObjectId id) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        return ride;
+    }
+
+    /**
+     * Cas 1: deux lectures du même trajet
+     *  alors une seule lecture en base, 1 miss puis 1 hit.
+     */
+    @Test
+    void givenCachedRide_whenGetAgain_thenHitWithoutLoad() {
+        RideCache cache = new RideCache(true, 10, Duration.ofMinutes(1));
+        ObjectId id = new ObjectId();
+
+        Ride first = cache.get(id, loader);
+        Ride second = cache.get(id, loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    /**
+     * Cas 2: invalidation explicite
+     *  alors le trajet est relu au prochain appel.
+     */
+    @Test
+    void givenInvalidatedRide_whenGetAgain_thenReloaded() {
+        RideCache cache = new RideCache(true, 10, Duration.ofMinutes(1));
+        ObjectId id = new ObjectId();
+
+        cache.get(id, loader);
+        cache.invalidate(id);
+        cache.get(id, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Cas 3: lecture groupée avec un trajet déjà en cache
+     *  alors seuls les ids manquants sont demandés au loader.
+     */
+    @Test
+    void givenPartiallyCached_whenGetAll_thenLoadOnlyMissing() {
+        RideCache cache = new RideCache(true, 10, Duration.ofMinutes(1));
+        ObjectId cached = new ObjectId();
+        ObjectId missing = new ObjectId();
+        cache.get(cached, loader);
+
+        List<ObjectId> requested = new ArrayList<>();
+        Map<ObjectId, Ride> result = cache.getAll(List.of(cached, missing), ids -> {
+            requested.addAll(ids);
+            Map<ObjectId, Ride> loaded = new HashMap<>();
+            for (ObjectId id : ids) {
+                loaded.put(id, newRide(id));
+            }
+            return loaded;
+        });
+
+        assertEquals(List.of(missing), requested);
+        assertEquals(2, result.size());
+    }
+
+    /**
+     * Cas 4: cache désactivé
+     *  alors chaque lecture passe par le loader et rien n'est gardé.
+     */
+    @Test
+    void givenDisabledCache_whenGetTwice_thenLoaderCalledTwice() {
+        RideCache cache = new RideCache(false, 10, Duration.ofMinutes(1));
+        ObjectId id = new ObjectId();
+
+        cache.get(id, loader);
+        cache.get(id, loader);
+        Function<Collection<ObjectId>, Map<ObjectId, Ride>> none = ids -> Map.of();
+        cache.getAll(List.of(id), none);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Cas 5: invalidation pendant la lecture en base (reserveSeats, change stream...)
+     *  alors le trajet lu, peut-être périmé, n'est pas remis en cache.
+     */
+    @Test
+    void givenInvalidationDuringLoad_whenGet_thenLoadedRideNotCached() {
+        RideCache cache = new RideCache(true, 10, Duration.ofMinutes(1));
+        ObjectId id = new ObjectId();
+
+        cache.get(id, key -> {
+            Ride stale = loader.apply(key);
+            cache.invalidate(key);
+            return stale;
+        });
+        cache.getAll(List.of(id), ids -> {
+            cache.invalidateAll();
+            return Map.of(id, loader.apply(id));
+        });
+        cache.get(id, loader);
+        cache.get(id, loader);
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,86 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.util.DateTimeUtils;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur l'application des événements du change stream aux caches (RideChangeListener),
+ * c'est-à-dire les écritures faites par une autre instance.
+ */
+class RideChangeListenerTest {
+
+    private static final LocalDate FRIDAY = LocalDate.of(2025, 6, 13);
+    private static final LocalDate SATURDAY = FRIDAY.plusDays(1);
+
+    private final RideCache rideCache = new RideCache(true, 100, Duration.ofMinutes(1));
+    private final RideSearchCache searchCache = new RideSearchCache(true, 100, Duration.ofMinutes(1), 50);
+    private final AtomicInteger newRides = new AtomicInteger();
+    private final RideChangeListener listener =
+            new RideChangeListener(rideCache, searchCache, newRides::incrementAndGet);
+
+    private static Ride newRide() {
+        Ride ride = new Ride();
+        ride.setId(new ObjectId());
+        return ride;
+    }
+
+    private static BsonDocument key(ObjectId id) {
+        return new BsonDocument("_id", new BsonObjectId(id));
+    }
+
+    /**
+     * Cas 1: trajet créé par une autre instance, départ le vendredi soir
+     *  alors les recherches du vendredi sont retirées, celles du samedi restent,
+     *  et les prochains trajets sont rafraîchis.
+     */
+    @Test
+    void givenInsertEvent_whenOnChange_thenSearchesOfThatDayInvalidated() {
+        RideSearchCache.Key friday = new RideSearchCache.Key("nice", "milan", FRIDAY);
+        RideSearchCache.Key saturday = new RideSearchCache.Key("nice", "milan", SATURDAY);
+        searchCache.get(friday, () -> List.of(newRide()));
+        searchCache.get(saturday, () -> List.of(newRide()));
+
+        ObjectId id = new ObjectId();
+        Document inserted = new Document("_id", id)
+                .append("departureDateTime", DateTimeUtils.toDate(FRIDAY.atTime(23, 30)));
+        listener.onChange(OperationType.INSERT, key(id), inserted);
+
+        assertEquals(1, searchCache.size());
+        assertEquals(1, newRides.get());
+        searchCache.get(saturday, List::of);
+        assertEquals(1, searchCache.getHits());
+    }
+
+    /**
+     * Cas 2: places d'un trajet modifiées par une autre instance
+     *  alors le trajet sort du cache des trajets et des recherches qui le contiennent.
+     */
+    @Test
+    void givenUpdateEvent_whenOnChange_thenRideInvalidatedEverywhere() {
+        Ride changed = newRide();
+        Ride other = newRide();
+        rideCache.get(changed.getId(), id -> changed);
+        rideCache.get(other.getId(), id -> other);
+        searchCache.get(new RideSearchCache.Key("nice", "milan", FRIDAY), () -> List.of(changed, other));
+        searchCache.get(new RideSearchCache.Key("nice", "gênes", FRIDAY), () -> List.of(other));
+
+        listener.onChange(OperationType.UPDATE, key(changed.getId()), null);
+
+        assertEquals(1, rideCache.size());
+        assertEquals(1, searchCache.size());
+        assertEquals(0, newRides.get());
+    }
+}
@@ -0,0 +1,59 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.model.Ride;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur le curseur de pagination des prochains trajets (RideCursor).
+ */
+class RideCursorTest {
+
+    /**
+     * Cas 1: curseur du dernier trajet d'une page, écrit puis relu (aller-retour par l'URL)
+     *  alors on retrouve la même position (date + id).
+     */
+    @Test
+    void givenRide_whenCursorWrittenAndParsed_thenSamePosition() {
+        Ride ride = new Ride();
+        ride.setId(new ObjectId());
+        ride.setDepartureDateTime(LocalDateTime.of(2025, 6, 13, 18, 30));
+
+        RideCursor cursor = RideCursor.after(ride);
+        RideCursor parsed = RideCursor.parse(cursor.toString());
+
+        assertEquals(cursor, parsed);
+        assertEquals(ride.getId(), parsed.id());
+    }
+
+    /**
+     * Cas 2: valeurs absentes ou illisibles
+     *  alors null (on repart de la première page).
+     */
+    @Test
+    void givenInvalidValue_whenParse_thenNull() {
+        assertNull(RideCursor.parse(null));
+        assertNull(RideCursor.parse(""));
+        assertNull(RideCursor.parse("abc"));
+        assertNull(RideCursor.parse("abc_665f1c2e8b3a4d2f9c0e1a7b"));
+        assertNull(RideCursor.parse("1718280000000_pas-un-id"));
+        assertNull(RideCursor.parse("_665f1c2e8b3a4d2f9c0e1a7b"));
+    }
+
+    /**
+     * Cas 3: trajet sans id ou sans date
+     *  alors pas de curseur.
+     */
+    @Test
+    void givenIncompleteRide_whenAfter_thenNull() {
+        Ride ride = new Ride();
+        ride.setId(new ObjectId());
+
+        assertNull(RideCursor.after(ride));
+        assertNull(RideCursor.after(null));
+    }
+}
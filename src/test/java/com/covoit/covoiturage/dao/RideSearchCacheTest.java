@@ -0,0 +1,175 @@
+package com.covoit.covoiturage.dao;
+
+import com.covoit.covoiturage.model.Ride;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur le cache des recherches de trajets (RideSearchCache).
+ */
+class RideSearchCacheTest {
+
+    private static final LocalDate FRIDAY = LocalDate.of(2025, 6, 13);
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    private Supplier<List<Ride>> search(Ride... rides) {
+        return () -> {
+            searches.incrementAndGet();
+            return new ArrayList<>(List.of(rides));
+        };
+    }
+
+    private static Ride newRide() {
+        Ride ride = new Ride();
+        ride.setId(new ObjectId());
+        return ride;
+    }
+
+    private static RideSearchCache newCache(int maxRidesPerEntry) {
+        return new RideSearchCache(true, 100, Duration.ofMinutes(1), maxRidesPerEntry);
+    }
+
+    /**
+     * Cas 1: même recherche deux fois
+     *  alors une seule requête, et la liste renvoyée n'est pas modifiable.
+     */
+    @Test
+    void givenSameSearch_whenGetTwice_thenSearchedOnce() {
+        RideSearchCache cache = newCache(10);
+        RideSearchCache.Key key = new RideSearchCache.Key("nice", "milan", FRIDAY);
+
+        List<Ride> first = cache.get(key, search(newRide()));
+        List<Ride> second = cache.get(key, search(newRide()));
+
+        assertSame(first, second);
+        assertEquals(1, searches.get());
+        assertEquals(1, cache.getHits());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(newRide()));
+    }
+
+    /**
+     * Cas 2: nouveau trajet le vendredi
+     *  alors les recherches du vendredi sont retirées, pas celles du samedi.
+     */
+    @Test
+    void givenNewRideOnDate_whenInvalidateDate_thenOnlyThatDateRemoved() {
+        RideSearchCache cache = newCache(10);
+        cache.get(new RideSearchCache.Key("nice", "milan", FRIDAY), search());
+        cache.get(new RideSearchCache.Key("lyon", "paris", FRIDAY), search());
+        cache.get(new RideSearchCache.Key("nice", "milan", FRIDAY.plusDays(1)), search());
+
+        cache.invalidateDate(FRIDAY);
+
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    /**
+     * Cas 3: les places d'un trajet changent
+     *  alors seules les recherches qui contiennent ce trajet sont retirées.
+     */
+    @Test
+    void givenRideInResults_whenInvalidateRide_thenMatchingSearchRemoved() {
+        RideSearchCache cache = newCache(10);
+        Ride ride = newRide();
+        cache.get(new RideSearchCache.Key("nice", "milan", FRIDAY), search(ride));
+        cache.get(new RideSearchCache.Key("lyon", "paris", FRIDAY), search(newRide()));
+
+        cache.invalidateRide(ride.getId());
+
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Cas 4: résultat plus grand que la borne par entrée
+     *  alors il est renvoyé mais pas gardé.
+     */
+    @Test
+    void givenOversizedResult_whenGet_thenNotCached() {
+        RideSearchCache cache = newCache(1);
+        RideSearchCache.Key key = new RideSearchCache.Key("nice", "milan", FRIDAY);
+
+        List<Ride> rides = cache.get(key, search(newRide(), newRide()));
+
+        assertEquals(2, rides.size());
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getOversized());
+    }
+
+    /**
+     * Cas 5: un trajet change de places pendant la recherche
+     *  alors le résultat est renvoyé mais pas gardé, la recherche suivante est refaite.
+     */
+    @Test
+    void givenInvalidationDuringSearch_whenGet_thenResultNotCached() {
+        RideSearchCache cache = newCache(10);
+        RideSearchCache.Key key = new RideSearchCache.Key("nice", "milan", FRIDAY);
+        Ride ride = newRide();
+
+        List<Ride> rides = cache.get(key, () -> {
+            searches.incrementAndGet();
+            cache.invalidateRide(ride.getId());
+            return List.of(ride);
+        });
+        cache.get(key, search(ride));
+
+        assertEquals(1, rides.size());
+        assertEquals(2, searches.get());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Cas 6: un AUTRE trajet change de places pendant la recherche
+     *  alors le résultat est quand même gardé.
+     */
+    @Test
+    void givenOtherRideInvalidatedDuringSearch_whenGet_thenResultCached() {
+        RideSearchCache cache = newCache(10);
+        RideSearchCache.Key key = new RideSearchCache.Key("nice", "milan", FRIDAY);
+        Ride ride = newRide();
+
+        cache.get(key, () -> {
+            searches.incrementAndGet();
+            cache.invalidateRide(new ObjectId());
+            return List.of(ride);
+        });
+        cache.get(key, search(ride));
+
+        assertEquals(1, searches.get());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Cas 7: nouveau trajet pendant la recherche
+     *  alors le résultat n'est pas gardé pour ce jour-là, il l'est pour un autre jour.
+     */
+    @Test
+    void givenDateInvalidatedDuringSearch_whenGet_thenOnlyThatDateNotCached() {
+        RideSearchCache cache = newCache(10);
+        RideSearchCache.Key friday = new RideSearchCache.Key("nice", "milan", FRIDAY);
+        RideSearchCache.Key saturday = new RideSearchCache.Key("nice", "milan", FRIDAY.plusDays(1));
+
+        cache.get(friday, () -> {
+            cache.invalidateDate(FRIDAY);
+            return List.of(newRide());
+        });
+        cache.get(saturday, () -> {
+            cache.invalidateDate(FRIDAY);
+            return List.of(newRide());
+        });
+
+        assertEquals(1, cache.size());
+        assertEquals(0, searches.get());
+        assertFalse(cache.get(saturday, search()).isEmpty());
+    }
+}
@@ -0,0 +1,181 @@
+package com.covoit.covoiturage.dao.codec;
+
+import com.covoit.covoiturage.model.Booking;
+import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.util.DateTimeUtils;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH: décodage d'un trajet / d'une réservation depuis les octets BSON
+ *  - "document": BSON -> Document -> objet métier (ancien toRide / toBooking, recopiés ici)
+ *  - "codec": BSON -> objet métier directement avec RideCodec / BookingCodec
+ *
+ * Lancement (pas exécuté par mvn test):
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        com.covoit.covoiturage.dao.codec.ModelCodecBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelCodecBenchmark {
+
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private final RideCodec rideCodec = new RideCodec();
+    private final BookingCodec bookingCodec = new BookingCodec();
+
+    private byte[] rideBytes;
+    private byte[] bookingBytes;
+
+    @Setup
+    public void setUp() {
+        Ride ride = new Ride();
+        ride.setId(new ObjectId());
+        ride.setDriverId(new ObjectId());
+        ride.setDepartureCity("paris");
+        ride.setArrivalCity("madrid");
+        ride.setStops(Arrays.asList("orléans", "tours", "poitiers", "bordeaux", "bayonne"));
+        ride.setDepartureDateTime(LocalDateTime.of(2030, 5, 1, 8, 30));
+        ride.setTotalSeats(4);
+        ride.setPricePerSeat(90);
+        ride.setDescription("Départ devant la gare, petits bagages uniquement.");
+        ride.setSegmentPrices(Arrays.asList(10, 10, 15, 20, 15, 20));
+        ride.setSeatsUsed(Arrays.asList(1, 2, 2, 3, 1, 0));
+        rideBytes = toBytes(rideCodec, ride);
+
+        Booking booking = new Booking();
+        booking.setId(new ObjectId());
+        booking.setRideId(ride.getId());
+        booking.setPassengerId(new ObjectId());
+        booking.setSeats(2);
+        booking.setCreatedAt(LocalDateTime.of(2030, 4, 20, 18, 0));
+        booking.setStatus("CONFIRMED");
+        booking.setTicketCode("TCK-8F2A-19C4");
+        booking.setFromCity("Tours");
+        booking.setToCity("Bordeaux");
+        booking.setFromIndex(2);
+        booking.setToIndex(5);
+        booking.setPricePerSeat(50);
+        booking.setTotalPrice(100);
+        bookingBytes = toBytes(bookingCodec, booking);
+    }
+
+    private static <T> byte[] toBytes(org.bson.codecs.Encoder<T> encoder, T value) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        encoder.encode(new BsonBinaryWriter(buffer), value, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    private static BsonBinaryReader reader(byte[] bytes) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+    }
+
+    @Benchmark
+    public Ride rideDocument() {
+        Document doc = documentCodec.decode(reader(rideBytes), DecoderContext.builder().build());
+        return legacyToRide(doc);
+    }
+
+    @Benchmark
+    public Ride rideCodec() {
+        return rideCodec.decode(reader(rideBytes), DecoderContext.builder().build());
+    }
+
+    @Benchmark
+    public Booking bookingDocument() {
+        Document doc = documentCodec.decode(reader(bookingBytes), DecoderContext.builder().build());
+        return legacyToBooking(doc);
+    }
+
+    @Benchmark
+    public Booking bookingCodec() {
+        return bookingCodec.decode(reader(bookingBytes), DecoderContext.builder().build());
+    }
+
+    // --- référence: mapping Document -> objet tel qu'il était dans les DAO
+
+    private static Ride legacyToRide(Document doc) {
+        Ride r = new Ride();
+        r.setId(doc.getObjectId("_id"));
+        r.setDriverId(doc.getObjectId("driverId"));
+        r.setDepartureCity(doc.getString("departureCity"));
+        r.setArrivalCity(doc.getString("arrivalCity"));
+        r.setDepartureDateTime(DateTimeUtils.toLocalDateTime(doc.getDate("departureDateTime")));
+        r.setTotalSeats(doc.getInteger("totalSeats", 0));
+        r.setPricePerSeat(doc.getInteger("pricePerSeat", 0));
+        r.setDescription(doc.getString("description"));
+        List<String> stops = doc.getList("stops", String.class);
+        if (stops != null) {
+            r.setStops(stops);
+        }
+        List<Integer> segPrices = doc.getList("segmentPrices", Integer.class);
+        if (segPrices != null) {
+            r.setSegmentPrices(segPrices);
+        }
+        List<Integer> seatsUsed = doc.getList("seatsUsed", Integer.class);
+        if (seatsUsed != null) {
+            r.setSeatsUsed(seatsUsed);
+        }
+        return r;
+    }
+
+    private static Booking legacyToBooking(Document doc) {
+        Booking b = new Booking();
+        b.setId(doc.getObjectId("_id"));
+        b.setRideId(doc.getObjectId("rideId"));
+        b.setPassengerId(doc.getObjectId("passengerId"));
+        b.setSeats(doc.getInteger("seats", 0));
+        b.setTicketCode(doc.getString("ticketCode"));
+        b.setStatus(doc.getString("status"));
+        b.setDriverMessage(doc.getString("driverMessage"));
+        b.setFromCity(doc.getString("fromCity"));
+        b.setToCity(doc.getString("toCity"));
+        b.setFromIndex(doc.getInteger("fromIndex", -1));
+        b.setToIndex(doc.getInteger("toIndex", -1));
+        b.setPricePerSeat(doc.getInteger("pricePerSeat", 0));
+        b.setTotalPrice(doc.getInteger("totalPrice", 0));
+        Date created = doc.getDate("createdAt");
+        if (created != null) {
+            b.setCreatedAt(created.toInstant()
+                    .atZone(java.time.ZoneId.systemDefault())
+                    .toLocalDateTime());
+        }
+        return b;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ModelCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
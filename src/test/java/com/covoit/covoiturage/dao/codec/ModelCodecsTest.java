@@ -0,0 +1,109 @@
+package com.covoit.covoiturage.dao.codec;
+
+import com.covoit.covoiturage.model.Booking;
+import com.covoit.covoiturage.model.Ride;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests des codecs BSON sans base MongoDB (lecture/écriture dans un BsonDocument).
+ */
+class ModelCodecsTest {
+
+    private static <T> BsonDocument encode(org.bson.codecs.Codec<T> codec, T value) {
+        BsonDocument doc = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(doc), value, EncoderContext.builder().build());
+        return doc;
+    }
+
+    private static <T> T decode(org.bson.codecs.Codec<T> codec, BsonDocument doc) {
+        return codec.decode(new BsonDocumentReader(doc), DecoderContext.builder().build());
+    }
+
+    /**
+     * Cas 1:
+     * - trajet Paris -> Poitiers -> Madrid écrit puis relu
+     *
+     * -> villes normalisées et "pathCities" en base, mêmes valeurs à la relecture
+     */
+    @Test
+    void givenRide_whenEncodeThenDecode_thenSameRide() {
+        Ride ride = new Ride();
+        ride.setId(new ObjectId());
+        ride.setDriverId(new ObjectId());
+        ride.setDepartureCity("Paris");
+        ride.setArrivalCity("Madrid");
+        ride.setStops(Arrays.asList("poitiers"));
+        ride.setDepartureDateTime(LocalDateTime.of(2030, 5, 1, 8, 30));
+        ride.setTotalSeats(3);
+        ride.setPricePerSeat(40);
+        ride.setSegmentPrices(Arrays.asList(15, 25));
+        ride.setSeatsUsed(Arrays.asList(0, 2));
+
+        RideCodec codec = new RideCodec();
+        BsonDocument doc = encode(codec, ride);
+
+        assertEquals("paris", doc.getString("departureCity").getValue());
+        assertEquals(3, doc.getArray("pathCities").size());
+
+        Ride read = decode(codec, doc);
+        assertEquals(ride.getId(), read.getId());
+        assertEquals(ride.getDriverId(), read.getDriverId());
+        assertEquals(ride.getDepartureDateTime(), read.getDepartureDateTime());
+        assertEquals(ride.getFullPath(), read.getFullPath());
+        assertEquals(List.of(15, 25), read.getSegmentPrices());
+        assertEquals(List.of(0, 2), read.getSeatsUsed());
+        assertNull(read.getDescription());
+    }
+
+    /**
+     * Cas 2:
+     * - anciennes réservations: createdAt en chaîne ISO ou en date BSON,
+     *   sans fromIndex/toIndex, seats stocké en long
+     *
+     * -> createdAt relu dans les deux cas, indices à -1
+     */
+    @Test
+    void givenLegacyBookingShapes_whenDecode_thenCreatedAtAndDefaults() {
+        BookingCodec codec = new BookingCodec();
+        LocalDateTime created = LocalDateTime.of(2025, 1, 31, 10, 15);
+
+        BsonDocument asString = new BsonDocument("_id", new BsonObjectId(new ObjectId()))
+                .append("seats", new BsonInt64(2))
+                .append("status", new BsonString("PENDING"))
+                .append("createdAt", new BsonString("2025-01-31T10:15:00"));
+
+        Booking b1 = decode(codec, asString);
+        assertEquals(created, b1.getCreatedAt());
+        assertEquals(2, b1.getSeats());
+        assertEquals(-1, b1.getFromIndex());
+        assertEquals(-1, b1.getToIndex());
+
+        long millis = created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        BsonDocument asDate = new BsonDocument("createdAt", new BsonDateTime(millis))
+                .append("fromIndex", new BsonInt32(1))
+                .append("toIndex", new BsonInt32(3));
+
+        Booking b2 = decode(codec, asDate);
+        assertEquals(created, b2.getCreatedAt());
+        assertEquals(1, b2.getFromIndex());
+        assertEquals(3, b2.getToIndex());
+    }
+}
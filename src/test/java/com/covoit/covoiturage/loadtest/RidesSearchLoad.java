@@ -0,0 +1,112 @@
+package com.covoit.covoiturage.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Petit générateur de charge sur la recherche /rides (pas exécuté par mvn test).
+ *
+ * N clients envoient des recherches en boucle pendant la durée donnée,
+ * puis on affiche le débit et les latences (p50, p95, p99, max).
+ *
+ * Arguments: baseUrl clients durée(s) départ arrivée date(yyyy-MM-dd)
+ *   ex: http://localhost:8082/covoiturage 200 60 paris lyon 2030-05-01
+ * Voir docker/loadtest/compare-thread-modes.sh.
+ */
+public class RidesSearchLoad {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 6) {
+            System.err.println("Usage: RidesSearchLoad baseUrl clients durationSeconds departure arrival date");
+            System.exit(1);
+        }
+        String baseUrl = args[0];
+        int clients = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+
+        URI uri = URI.create(baseUrl + "/rides?departureCity=" + encode(args[3])
+                + "&arrivalCity=" + encode(args[4]) + "&date=" + encode(args[5]));
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        // quelques requêtes de chauffe (compilation des JSP, index MongoDB en cache)
+        for (int i = 0; i < 20; i++) {
+            http.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> resp = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (resp.statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (n == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, n * 2);
+                        }
+                        latencies[n++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, n);
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> f : futures) {
+            long[] part = f.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + part.length);
+            System.arraycopy(part, 0, all, offset, part.length);
+        }
+        Arrays.sort(all);
+
+        System.out.printf("url        %s%n", uri);
+        System.out.printf("clients    %d, durée %ds%n", clients, duration.toSeconds());
+        System.out.printf("requêtes   %d OK, %d erreurs, %.1f req/s%n",
+                all.length, errors.get(), all.length / (double) duration.toSeconds());
+        System.out.printf("latence    p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                percentileMs(all, 50), percentileMs(all, 95), percentileMs(all, 99), percentileMs(all, 100));
+    }
+
+    private static double percentileMs(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+}
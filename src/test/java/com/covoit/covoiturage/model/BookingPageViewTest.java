@@ -0,0 +1,87 @@
+package com.covoit.covoiturage.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur la vue de la page de réservation: places du trajet complet
+ * et du sous-trajet calculées à partir du même relevé seatsUsed.
+ */
+class BookingPageViewTest {
+
+    private Ride newRide() {
+        Ride ride = new Ride();
+        ride.setDepartureCity("nice");
+        ride.setArrivalCity("milan");
+        ride.setStops(Arrays.asList("cannes", "monaco", "gênes"));
+        ride.setTotalSeats(4);
+        ride.setPricePerSeat(10);
+        return ride;
+    }
+
+    /**
+     * Cas 1: relevé [1, 3, 0, 2] sur Nice -> Cannes -> Monaco -> Gênes -> Milan
+     *  - trajet complet: segment le plus chargé = 3 -> 1 place
+     *  - sous-trajet Monaco -> Milan: segments [0, 2] -> 2 places
+     */
+    @Test
+    void givenSeatsUsed_whenBuildView_thenBothAvailabilitiesFromSameSnapshot() {
+        List<Integer> used = Arrays.asList(1, 3, 0, 2);
+
+        BookingPageView view = BookingPageView.of(newRide(), used, "Monaco", "Milan");
+
+        assertEquals(1, view.getRemainingSeats());
+        assertEquals(2, view.getSegmentRemainingSeats());
+        assertEquals(2, view.getSegmentFromIndex());
+        assertEquals(4, view.getSegmentToIndex());
+        assertEquals(1, view.getSegmentStopsCount());
+        assertTrue(view.isSubRide());
+    }
+
+    /**
+     * Cas 2: sous-trajet = trajet complet -> ce n'est pas un sous-trajet,
+     * et les deux disponibilités sont identiques.
+     */
+    @Test
+    void givenFullRideRequested_whenBuildView_thenNotSubRide() {
+        List<Integer> used = Arrays.asList(1, 3, 0, 2);
+
+        BookingPageView view = BookingPageView.of(newRide(), used, "nice", "milan");
+
+        assertFalse(view.isSubRide());
+        assertEquals(view.getRemainingSeats(), view.getSegmentRemainingSeats());
+    }
+
+    /**
+     * Cas 3: villes absentes ou dans le mauvais ordre
+     *  alors pas de sous-trajet, seules les places du trajet complet sont renseignées.
+     */
+    @Test
+    void givenInvalidCities_whenBuildView_thenNoSegment() {
+        List<Integer> used = Arrays.asList(0, 0, 0, 0);
+
+        BookingPageView reversed = BookingPageView.of(newRide(), used, "milan", "nice");
+        BookingPageView missing = BookingPageView.of(newRide(), used, null, null);
+
+        assertNull(reversed.getSegmentFromIndex());
+        assertNull(reversed.getSegmentRemainingSeats());
+        assertNull(missing.getSegmentToIndex());
+        assertEquals(4, missing.getRemainingSeats());
+    }
+
+    /**
+     * Cas 4: relevé vide (aucune réservation confirmée)
+     *  alors toutes les places sont libres.
+     */
+    @Test
+    void givenEmptySnapshot_whenBuildView_thenAllSeatsFree() {
+        BookingPageView view = BookingPageView.of(newRide(), List.of(), "cannes", "gênes");
+
+        assertEquals(4, view.getRemainingSeats());
+        assertEquals(4, view.getSegmentRemainingSeats());
+    }
+}
@@ -84,5 +84,70 @@ class RideFullPathTest {
 
         assertEquals(2, count);
     }
-    
+
+    /**
+     * Cas 4:
+     * - villes saisies avec majuscules et espaces
+     *
+     * -> getNormalizedPath() (stocké en base dans "pathCities") doit renvoyer
+     *   le même chemin que getFullPath(), mais en minuscules:
+     *   ["paris", "poitiers", "madrid"]
+     */
+    @Test
+    void givenMixedCaseCities_whenGetNormalizedPath_thenLowerCasePath() {
+        Ride ride = new Ride();
+        ride.setDepartureCity(" PARIS ");
+        ride.setArrivalCity("Madrid");
+        ride.setStops(Arrays.asList("Poitiers"));
+
+        assertEquals(
+                Arrays.asList("paris", "poitiers", "madrid"),
+                ride.getNormalizedPath()
+        );
+    }
+
+
+    /**
+     * Cas 5:
+     * - fullPath = [Nice, Cannes, Monaco, Milan]
+     *
+     * -> findSubRideIndices() renvoie les indices du sous-trajet,
+     *    ou null si les villes ne sont pas dans le bon ordre.
+     */
+    @Test
+    void givenSubRide_whenFindSubRideIndices_thenReturnIndicesInFullPath() {
+        Ride ride = new Ride();
+        ride.setDepartureCity("nice");
+        ride.setArrivalCity("milan");
+        ride.setStops(Arrays.asList("cannes", "monaco"));
+
+        assertArrayEquals(new int[] {1, 2}, ride.findSubRideIndices("Cannes", " MONACO "));
+        assertArrayEquals(new int[] {0, 3}, ride.findSubRideIndices(null, null));
+        assertNull(ride.findSubRideIndices("monaco", "cannes"));
+        assertNull(ride.findSubRideIndices("paris", "milan"));
+    }
+
+    /**
+     * Cas 6: chemin mémorisé
+     * - deux appels renvoient la même liste (pas de recalcul), non modifiable
+     * - un setter sur les villes ou les arrêts force le recalcul
+     */
+    @Test
+    void givenMemoizedPath_whenSetterCalled_thenPathRecomputed() {
+        Ride ride = new Ride();
+        ride.setDepartureCity("nice");
+        ride.setArrivalCity("milan");
+        ride.setStops(Arrays.asList("cannes"));
+
+        List<String> first = ride.getFullPath();
+        assertSame(first, ride.getFullPath());
+        assertThrows(UnsupportedOperationException.class, () -> first.add("Gênes"));
+
+        ride.setStops(Arrays.asList("cannes", "monaco"));
+        assertEquals(Arrays.asList("Nice", "Cannes", "Monaco", "Milan"), ride.getFullPath());
+
+        ride.setArrivalCity("turin");
+        assertEquals(Arrays.asList("nice", "cannes", "monaco", "turin"), ride.getNormalizedPath());
+        assertEquals(2, ride.indexOfCityInFullPath(" Monaco "));
+    }
 }
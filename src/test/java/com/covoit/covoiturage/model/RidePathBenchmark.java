@@ -0,0 +1,181 @@
+package com.covoit.covoiturage.model;
+
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH: affichage d'une page de résultats de recherche (20 trajets),
+ * c'est-à-dire les appels faits par RideDao (filtre du sous-trajet),
+ * BookingService (places restantes) et rides.jsp sur chaque trajet.
+ *  - "legacy": chemin recalculé à chaque appel (ancien getFullPath, recopié ici)
+ *  - "memoized": Ride actuel, chemin calculé une fois par trajet
+ *
+ * Le profileur "gc" donne les octets alloués par opération (gc.alloc.rate.norm).
+ *
+ * Lancement (pas exécuté par mvn test):
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        com.covoit.covoiturage.model.RidePathBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RidePathBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private List<Ride> rides;
+
+    @Setup
+    public void setUp() {
+        rides = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Ride ride = new Ride();
+            ride.setId(new ObjectId());
+            ride.setDepartureCity("paris");
+            ride.setArrivalCity("madrid");
+            ride.setStops(Arrays.asList("orléans", "tours", "poitiers", "bordeaux", "bayonne"));
+            ride.setDepartureDateTime(LocalDateTime.of(2030, 5, 1, 8, 30));
+            ride.setTotalSeats(4);
+            ride.setPricePerSeat(90);
+            ride.setSegmentPrices(Arrays.asList(10, 10, 15, 20, 15, 20));
+            ride.setSeatsUsed(Arrays.asList(1, 2, 2, 3, 1, 0));
+            rides.add(ride);
+        }
+    }
+
+    /*
+     * Un rendu: nouveaux objets Ride (comme après une lecture Mongo),
+     * puis les mêmes appels que la recherche et la JSP.
+     */
+    @Benchmark
+    public void memoized(Blackhole bh) {
+        for (Ride source : rides) {
+            Ride ride = copy(source);
+            bh.consume(ride.findSubRideIndices("tours", "bordeaux"));
+            bh.consume(ride.hasSeatLedger());
+            bh.consume(ride.getRemainingSeatsFromLedger(2, 5));
+            bh.consume(ride.getPricePerSeatForSegment(2, 5));
+            bh.consume(ride.getStopsDisplay());
+            bh.consume(ride.getStopsCountLabel());
+            bh.consume(ride.indexOfCityInFullPath("bordeaux"));
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole bh) {
+        for (Ride source : rides) {
+            Ride ride = copy(source);
+            // findSubRideIndices -> getNormalizedPath -> getFullPath
+            List<String> norm = new ArrayList<>();
+            for (String city : legacyFullPath(ride)) {
+                norm.add(Ride.normalizeCity(city));
+            }
+            bh.consume(norm.indexOf("tours"));
+            bh.consume(norm.lastIndexOf("bordeaux"));
+            // hasSeatLedger, getRemainingSeatsFromLedger (hasSeatLedger), getPricePerSeatForSegment
+            bh.consume(legacyFullPath(ride).size());
+            bh.consume(legacyFullPath(ride).size());
+            bh.consume(legacyFullPath(ride).size());
+            // getStopsDisplay, getStopsCountLabel
+            bh.consume(String.join(" -> ", legacyFullPath(ride)));
+            bh.consume(legacyFullPath(ride).size() - 2);
+            // indexOfCityInFullPath: normalizeCity deux fois par ville
+            List<String> path = legacyFullPath(ride);
+            for (int i = 0; i < path.size(); i++) {
+                String c = path.get(i);
+                if (Ride.normalizeCity(c) != null && Ride.normalizeCity(c).equals("bordeaux")) {
+                    bh.consume(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static Ride copy(Ride source) {
+        Ride ride = new Ride();
+        ride.setId(source.getId());
+        ride.setDepartureCity(source.getDepartureCity());
+        ride.setArrivalCity(source.getArrivalCity());
+        ride.setStops(source.getStops());
+        ride.setDepartureDateTime(source.getDepartureDateTime());
+        ride.setTotalSeats(source.getTotalSeats());
+        ride.setPricePerSeat(source.getPricePerSeat());
+        ride.setSegmentPrices(source.getSegmentPrices());
+        ride.setSeatsUsed(source.getSeatsUsed());
+        return ride;
+    }
+
+    // --- référence: getFullPath tel qu'il était (une nouvelle liste à chaque appel)
+
+    private static List<String> legacyFullPath(Ride ride) {
+        List<String> path = new ArrayList<>();
+
+        String depNorm = Ride.normalizeCity(ride.getDepartureCity());
+        String arrNorm = Ride.normalizeCity(ride.getArrivalCity());
+
+        for (String s : ride.getStops()) {
+            String norm = Ride.normalizeCity(s);
+            if (norm == null) continue;
+
+            String formatted = Ride.formatCityName(s);
+            if (!path.isEmpty()
+                    && path.get(path.size() - 1).equalsIgnoreCase(formatted)) {
+                continue;
+            }
+            path.add(formatted);
+        }
+
+        if (depNorm != null) {
+            if (path.isEmpty()) {
+                path.add(Ride.formatCityName(ride.getDepartureCity()));
+            } else {
+                String firstNorm = Ride.normalizeCity(path.get(0));
+                if (!depNorm.equals(firstNorm)) {
+                    path.add(0, Ride.formatCityName(ride.getDepartureCity()));
+                }
+            }
+        }
+
+        if (arrNorm != null) {
+            if (path.isEmpty()) {
+                path.add(Ride.formatCityName(ride.getArrivalCity()));
+            } else {
+                String lastNorm = Ride.normalizeCity(path.get(path.size() - 1));
+                if (!arrNorm.equals(lastNorm)) {
+                    path.add(Ride.formatCityName(ride.getArrivalCity()));
+                }
+            }
+        }
+        return path;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RidePathBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,68 @@
+package com.covoit.covoiturage.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur le registre des places occupées par segment (seatsUsed).
+ */
+class RideSeatLedgerTest {
+
+    private Ride newRide() {
+        Ride ride = new Ride();
+        ride.setDepartureCity("nice");
+        ride.setArrivalCity("milan");
+        ride.setStops(Arrays.asList("cannes", "monaco", "gênes"));
+        ride.setTotalSeats(4);
+        return ride;
+    }
+
+    /**
+     * Cas 1: pas de registre (ancien trajet)
+     *  alors on ne peut pas répondre -> null.
+     */
+    @Test
+    void givenNoLedger_whenAskRemaining_thenReturnNull() {
+        Ride ride = newRide();
+
+        assertFalse(ride.hasSeatLedger());
+        assertNull(ride.getRemainingSeatsFromLedger(0, 4));
+    }
+
+    /**
+     * Cas 2: registre [1, 3, 0, 2] sur Nice -> Cannes -> Monaco -> Gênes -> Milan
+     * - Nice -> Cannes: 4 - 1 = 3
+     * - Cannes -> Monaco: 4 - 3 = 1
+     * - Monaco -> Gênes: 4 - 0 = 4
+     * - trajet complet: segment le plus chargé = 3 -> 1
+     */
+    @Test
+    void givenLedger_whenAskRemaining_thenUseMostLoadedSegment() {
+        Ride ride = newRide();
+        ride.setSeatsUsed(Arrays.asList(1, 3, 0, 2));
+
+        assertTrue(ride.hasSeatLedger());
+        assertEquals(3, ride.getRemainingSeatsFromLedger(0, 1));
+        assertEquals(1, ride.getRemainingSeatsFromLedger(1, 2));
+        assertEquals(4, ride.getRemainingSeatsFromLedger(2, 3));
+        assertEquals(1, ride.getRemainingSeatsFromLedger(0, 4));
+    }
+
+    /**
+     * Cas 3: registre de mauvaise taille ou indices invalides -> null.
+     */
+    @Test
+    void givenInvalidLedgerOrIndices_whenAskRemaining_thenReturnNull() {
+        Ride ride = newRide();
+        ride.setSeatsUsed(Arrays.asList(1, 3));
+        assertFalse(ride.hasSeatLedger());
+        assertNull(ride.getRemainingSeatsFromLedger(0, 1));
+
+        ride.setSeatsUsed(Arrays.asList(0, 0, 0, 0));
+        assertNull(ride.getRemainingSeatsFromLedger(2, 2));
+        assertNull(ride.getRemainingSeatsFromLedger(0, 5));
+    }
+}
@@ -0,0 +1,53 @@
+package com.covoit.covoiturage.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Les helpers d'affichage de RideSummary doivent donner le même rendu que Ride.
+ */
+class RideSummaryTest {
+
+    /**
+     * Cas 1:
+     * - pathCities = ["paris", "poitiers", "madrid"] (normalisé, comme en base)
+     *
+     * -> getStopsDisplay() = "Paris -> Poitiers -> Madrid", comme Ride.getStopsDisplay()
+     */
+    @Test
+    void givenPathCities_whenGetStopsDisplay_thenSameAsRide() {
+        Ride ride = new Ride();
+        ride.setDepartureCity("paris");
+        ride.setArrivalCity("madrid");
+        ride.setStops(Arrays.asList("poitiers"));
+
+        RideSummary summary = new RideSummary();
+        summary.setDepartureCity("paris");
+        summary.setArrivalCity("madrid");
+        summary.setPathCities(ride.getNormalizedPath());
+
+        assertEquals(ride.getStopsDisplay(), summary.getStopsDisplay());
+        assertEquals("Paris", summary.getDepartureCityDisplay());
+    }
+
+    /**
+     * Cas 2:
+     * - extrait coupé par MongoDB -> "…" ajouté
+     * - description vide -> null (la JSP n'affiche rien)
+     */
+    @Test
+    void givenExcerpt_whenGetDescription_thenEllipsisOnlyIfTruncated() {
+        RideSummary summary = new RideSummary();
+        summary.setDescriptionExcerpt("Départ devant la gare");
+        assertEquals("Départ devant la gare", summary.getDescription());
+
+        summary.setDescriptionTruncated(true);
+        assertEquals("Départ devant la gare…", summary.getDescription());
+
+        summary.setDescriptionExcerpt("");
+        assertNull(summary.getDescription());
+    }
+}
@@ -0,0 +1,281 @@
+package com.covoit.covoiturage.service;
+
+import com.covoit.covoiturage.config.MongoManager;
+import com.covoit.covoiturage.dao.BookingDao;
+import com.covoit.covoiturage.dao.RideDao;
+import com.covoit.covoiturage.model.Booking;
+import com.covoit.covoiturage.model.Ride;
+import com.covoit.covoiturage.model.User;
+import com.covoit.covoiturage.util.BusinessException;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.mongodb.client.model.Filters.eq;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test de charge sur la confirmation des réservations (BookingService.confirmBooking):
+ * des centaines de confirmations simultanées sur un même trajet ne doivent jamais
+ * dépasser le nombre de places d'un segment.
+ *
+ * Dans une seule JVM, confirmBooking passe par le verrou du trajet (RIDE_LOCKS) et les
+ * confirmations sont donc faites l'une après l'autre. Les cas 3 et 4 appellent directement
+ * reserveSeats et updateBookingIfStatus, sans verrou, comme deux instances de l'application:
+ * seuls le filtre de reserveSeats et le compare-and-set sur le statut empêchent la survente.
+ *
+ * Nécessite une base MongoDB: le test ne tourne que si MONGO_URI est défini, par ex.
+ *   MONGO_URI=mongodb://localhost:27017/covoiturage_test mvn test
+ * Les données créées (un trajet et ses réservations) sont supprimées à la fin.
+ */
+@EnabledIfEnvironmentVariable(named = "MONGO_URI", matches = ".+")
+class BookingServiceConfirmConcurrencyTest {
+
+    private static final int TOTAL_SEATS = 4;
+    private static final int THREADS = 64;
+
+    private final BookingService bookingService = new BookingService();
+    private final BookingDao bookingDao = new BookingDao();
+    private final RideDao rideDao = new RideDao();
+
+    private User driver;
+    private Ride ride;
+
+    @BeforeEach
+    void setUp() {
+        driver = new User();
+        driver.setId(new ObjectId());
+
+        // Nice -> Cannes -> Monaco -> Gênes -> Milan: 4 segments
+        ride = new Ride();
+        ride.setDriverId(driver.getId());
+        ride.setDepartureCity("nice");
+        ride.setArrivalCity("milan");
+        ride.setStops(Arrays.asList("cannes", "monaco", "gênes"));
+        ride.setDepartureDateTime(LocalDateTime.now().plusDays(7));
+        ride.setTotalSeats(TOTAL_SEATS);
+        ride.setPricePerSeat(40);
+        rideDao.insert(ride);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MongoManager.getDatabase().getCollection("bookings").deleteMany(eq("rideId", ride.getId()));
+        MongoManager.getDatabase().getCollection("rides").deleteOne(eq("_id", ride.getId()));
+    }
+
+    /**
+     * Cas 1: 300 demandes sur des sous-trajets variés, toutes confirmées en même temps
+     *  alors aucun segment ne dépasse totalSeats, et le registre seatsUsed
+     *  est égal à la somme des réservations confirmées.
+     */
+    @Test
+    void givenManyPendingBookings_whenConfirmedConcurrently_thenNoSegmentOversold() throws Exception {
+        int nbSegments = ride.getFullPath().size() - 1;
+        List<Booking> pending = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int from = i % nbSegments;
+            int to = from + 1 + (i / nbSegments) % (nbSegments - from);
+            pending.add(insertPending(from, to, 1 + i % 2));
+        }
+
+        AtomicInteger confirmed = new AtomicInteger();
+        runConcurrently(pending, b -> {
+            bookingService.confirmBooking(driver, b.getId().toHexString(), null);
+            confirmed.incrementAndGet();
+        });
+
+        int[] used = new int[nbSegments];
+        for (Booking b : bookingDao.findByRideId(ride.getId())) {
+            if ("CONFIRMED".equals(b.getStatus())) {
+                for (int seg = b.getFromIndex(); seg < b.getToIndex(); seg++) {
+                    used[seg] += b.getSeats();
+                }
+            }
+        }
+
+        List<Integer> ledger = ledger();
+        assertTrue(confirmed.get() > 0);
+        for (int seg = 0; seg < nbSegments; seg++) {
+            assertTrue(used[seg] <= TOTAL_SEATS, "segment " + seg + " survendu: " + used[seg]);
+            assertEquals(used[seg], ledger.get(seg), "registre incohérent sur le segment " + seg);
+        }
+    }
+
+    /**
+     * Cas 2: la même demande confirmée 200 fois en même temps
+     *  alors une seule confirmation réussit et les places ne sont comptées qu'une fois.
+     */
+    @Test
+    void givenSameBooking_whenConfirmedConcurrently_thenConfirmedOnce() throws Exception {
+        Booking booking = insertPending(0, 2, 2);
+        List<Booking> sameBooking = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sameBooking.add(booking);
+        }
+
+        AtomicInteger confirmed = new AtomicInteger();
+        runConcurrently(sameBooking, b -> {
+            bookingService.confirmBooking(driver, b.getId().toHexString(), null);
+            confirmed.incrementAndGet();
+        });
+
+        assertEquals(1, confirmed.get());
+        assertEquals(Arrays.asList(2, 2, 0, 0), ledger());
+    }
+
+    /**
+     * Cas 3: 300 demandes confirmées en même temps par le chemin des DAO, SANS le verrou
+     *  du trajet (reserveSeats puis PENDING -> CONFIRMED, places rendues si le statut a changé)
+     *  alors le registre, relu pendant et après la course, ne dépasse jamais totalSeats
+     *  et vaut à la fin la somme des réservations confirmées.
+     */
+    @Test
+    void givenManyPendingBookings_whenReservedWithoutRideLock_thenLedgerNeverExceedsTotalSeats() throws Exception {
+        int nbSegments = ride.getFullPath().size() - 1;
+        List<Booking> pending = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int from = i % nbSegments;
+            int to = from + 1 + (i / nbSegments) % (nbSegments - from);
+            pending.add(insertPending(from, to, 1 + i % 2));
+        }
+
+        // relit le registre en continu pendant la course
+        AtomicInteger maxSeen = new AtomicInteger();
+        AtomicBoolean racing = new AtomicBoolean(true);
+        Thread watcher = new Thread(() -> {
+            while (racing.get()) {
+                for (int used : ledger()) {
+                    maxSeen.accumulateAndGet(used, Math::max);
+                }
+            }
+        });
+        watcher.start();
+        try {
+            runConcurrently(pending, this::confirmWithoutRideLock);
+        } finally {
+            racing.set(false);
+            watcher.join();
+        }
+
+        int[] used = new int[nbSegments];
+        int confirmed = 0;
+        for (Booking b : bookingDao.findByRideId(ride.getId())) {
+            if ("CONFIRMED".equals(b.getStatus())) {
+                confirmed++;
+                for (int seg = b.getFromIndex(); seg < b.getToIndex(); seg++) {
+                    used[seg] += b.getSeats();
+                }
+            }
+        }
+
+        List<Integer> ledger = ledger();
+        assertTrue(confirmed > 0);
+        assertTrue(maxSeen.get() <= TOTAL_SEATS, "registre survendu pendant la course: " + maxSeen.get());
+        for (int seg = 0; seg < nbSegments; seg++) {
+            assertTrue(ledger.get(seg) <= TOTAL_SEATS, "segment " + seg + " survendu: " + ledger.get(seg));
+            assertEquals(used[seg], ledger.get(seg), "registre incohérent sur le segment " + seg);
+        }
+    }
+
+    /**
+     * Cas 4: la même demande confirmée 200 fois en même temps par le chemin des DAO, sans verrou
+     *  alors un seul compare-and-set réussit, les autres rendent leurs places.
+     */
+    @Test
+    void givenSameBooking_whenReservedWithoutRideLock_thenConfirmedOnce() throws Exception {
+        Booking booking = insertPending(0, 2, 2);
+        List<Booking> sameBooking = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sameBooking.add(booking);
+        }
+
+        AtomicInteger confirmed = new AtomicInteger();
+        runConcurrently(sameBooking, b -> {
+            confirmWithoutRideLock(b);
+            confirmed.incrementAndGet();
+        });
+
+        assertEquals(1, confirmed.get());
+        assertEquals(Arrays.asList(2, 2, 0, 0), ledger());
+    }
+
+    // Même enchaînement que BookingService.confirmLocked sans transaction, mais sans RIDE_LOCKS
+    private void confirmWithoutRideLock(Booking b) throws BusinessException {
+        if (!rideDao.reserveSeats(ride.getId(), b.getFromIndex(), b.getToIndex(), b.getSeats(), TOTAL_SEATS)) {
+            throw new BusinessException("plus de places");
+        }
+        if (!bookingDao.updateBookingIfStatus(b.getId(), "PENDING", "CONFIRMED", null, "T-" + b.getId())) {
+            rideDao.releaseSeats(ride.getId(), b.getFromIndex(), b.getToIndex(), b.getSeats());
+            throw new BusinessException("plus en attente");
+        }
+    }
+
+    private Booking insertPending(int fromIndex, int toIndex, int seats) {
+        List<String> path = ride.getFullPath();
+        Booking b = new Booking();
+        b.setRideId(ride.getId());
+        b.setPassengerId(new ObjectId());
+        b.setSeats(seats);
+        b.setFromIndex(fromIndex);
+        b.setToIndex(toIndex);
+        b.setFromCity(path.get(fromIndex));
+        b.setToCity(path.get(toIndex));
+        b.setStatus("PENDING");
+        b.setCreatedAt(LocalDateTime.now());
+        bookingDao.insert(b);
+        return b;
+    }
+
+    // registre seatsUsed relu directement en base (sans passer par les caches)
+    private List<Integer> ledger() {
+        Document doc = MongoManager.getDatabase().getCollection("rides")
+                .find(eq("_id", ride.getId())).first();
+        return doc.getList("seatsUsed", Integer.class);
+    }
+
+    private interface Confirmation {
+        void run(Booking booking) throws BusinessException;
+    }
+
+    // Lance toutes les confirmations en même temps; les refus métier (plus de place,
+    // plus en attente) sont attendus, toute autre erreur fait échouer le test.
+    private static void runConcurrently(List<Booking> bookings, Confirmation confirmation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Booking b : bookings) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        confirmation.run(b);
+                    } catch (BusinessException expected) {
+                        // refus attendu
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.covoit.covoiturage.service;
+
+import com.covoit.covoiturage.util.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur la limitation des tentatives de connexion (LoginThrottle).
+ */
+class LoginThrottleTest {
+
+    private final LoginThrottle throttle = new LoginThrottle(3, 5, Duration.ofMinutes(5), 100);
+
+    /**
+     * Cas 1: 3 échecs sur le même email (casse différente)
+     *  alors la tentative suivante est refusée, même depuis une autre IP.
+     */
+    @Test
+    void givenTooManyFailuresForEmail_whenCheckAllowed_thenRefused() throws Exception {
+        throttle.recordFailure("alice@example.com", "10.0.0.1");
+        throttle.recordFailure("Alice@Example.com", "10.0.0.2");
+        throttle.recordFailure("alice@example.com ", "10.0.0.3");
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> throttle.checkAllowed("alice@example.com", "10.0.0.4"));
+        assertEquals(300, e.getRetryAfterSeconds());
+
+        throttle.checkAllowed("bob@example.com", "10.0.0.4");
+    }
+
+    /**
+     * Cas 2: 5 échecs depuis une même IP sur des emails différents
+     *  alors cette IP est refusée, les autres non.
+     */
+    @Test
+    void givenTooManyFailuresForIp_whenCheckAllowed_thenRefused() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            throttle.recordFailure("user" + i + "@example.com", "10.0.0.9");
+        }
+
+        assertThrows(TooManyRequestsException.class,
+                () -> throttle.checkAllowed("new@example.com", "10.0.0.9"));
+        throttle.checkAllowed("new@example.com", "10.0.0.10");
+    }
+
+    /**
+     * Cas 3: 2 échecs puis une connexion réussie
+     *  alors le compteur de l'email repart de zéro.
+     */
+    @Test
+    void givenFailuresThenSuccess_whenCheckAllowed_thenEmailCounterReset() throws Exception {
+        throttle.recordFailure("carol@example.com", "10.0.1.1");
+        throttle.recordFailure("carol@example.com", "10.0.1.2");
+        throttle.recordSuccess("carol@example.com");
+        throttle.recordFailure("carol@example.com", "10.0.1.3");
+        throttle.recordFailure("carol@example.com", "10.0.1.4");
+
+        throttle.checkAllowed("carol@example.com", "10.0.1.5");
+    }
+}
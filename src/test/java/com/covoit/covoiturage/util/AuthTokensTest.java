@@ -0,0 +1,106 @@
+package com.covoit.covoiturage.util;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur les jetons de connexion signés (AuthTokens).
+ */
+class AuthTokensTest {
+
+    private static final long NOW = 1_760_000_000L;
+
+    private final AuthTokens tokens = new AuthTokens(
+            "un-secret-de-test-suffisamment-long!".getBytes(StandardCharsets.UTF_8));
+
+    /**
+     * Cas 1: jeton émis puis vérifié avant son expiration
+     *  alors on retrouve l'id de l'utilisateur et la date d'expiration.
+     */
+    @Test
+    void givenIssuedToken_whenVerifiedBeforeExpiry_thenUserIdReturned() {
+        ObjectId userId = new ObjectId();
+        String token = tokens.issue(userId, NOW + 3600);
+
+        AuthTokens.Token verified = tokens.verify(token, NOW);
+
+        assertNotNull(verified);
+        assertEquals(userId, verified.userId());
+        assertEquals(NOW + 3600, verified.expiresAt());
+    }
+
+    /**
+     * Cas 2: jeton expiré, ou signé avec un autre secret
+     *  alors refusé.
+     */
+    @Test
+    void givenExpiredOrForeignToken_whenVerified_thenNull() {
+        ObjectId userId = new ObjectId();
+        AuthTokens other = new AuthTokens("un-autre-secret-tout-aussi-long-!!".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(tokens.verify(tokens.issue(userId, NOW - 1), NOW));
+        assertNull(tokens.verify(other.issue(userId, NOW + 3600), NOW));
+    }
+
+    /**
+     * Cas 3: jeton modifié (autre utilisateur, expiration prolongée) ou illisible
+     *  alors refusé.
+     */
+    @Test
+    void givenTamperedOrInvalidToken_whenVerified_thenNull() {
+        ObjectId userId = new ObjectId();
+        String token = tokens.issue(userId, NOW + 3600);
+        String signature = token.substring(token.lastIndexOf('.'));
+
+        assertNull(tokens.verify(new ObjectId().toHexString() + "." + (NOW + 3600) + signature, NOW));
+        assertNull(tokens.verify(userId.toHexString() + "." + (NOW + 999_999) + signature, NOW));
+        assertNull(tokens.verify(null, NOW));
+        assertNull(tokens.verify("", NOW));
+        assertNull(tokens.verify("abc.def", NOW));
+        assertNull(tokens.verify("abc.123.!!!", NOW));
+        assertNull(tokens.verify(token + ".", NOW));
+    }
+
+    /**
+     * Cas 4: jeton avec le nom affiché
+     *  alors le nom est relu tel quel (accents compris), et un nom modifié est refusé.
+     */
+    @Test
+    void givenTokenWithName_whenVerified_thenNameReturnedAndTamperingRejected() {
+        ObjectId userId = new ObjectId();
+        String token = tokens.issue(userId, "Hélène", NOW + 3600);
+
+        AuthTokens.Token verified = tokens.verify(token, NOW);
+
+        assertNotNull(verified);
+        assertEquals(userId, verified.userId());
+        assertEquals("Hélène", verified.name());
+
+        String[] parts = token.split("\\.");
+        String otherName = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("Admin".getBytes(StandardCharsets.UTF_8));
+        assertNull(tokens.verify(parts[0] + "." + parts[1] + "." + otherName + "." + parts[3], NOW));
+    }
+
+    /**
+     * Cas 5: ancien jeton sans nom, ou nom trop long
+     *  alors le jeton sans nom reste valide (nom null), le nom long est tronqué.
+     */
+    @Test
+    void givenLegacyOrLongNameToken_whenVerified_thenAccepted() {
+        ObjectId userId = new ObjectId();
+
+        AuthTokens.Token legacy = tokens.verify(tokens.issue(userId, NOW + 3600), NOW);
+        AuthTokens.Token longName = tokens.verify(tokens.issue(userId, "x".repeat(500), NOW + 3600), NOW);
+
+        assertNotNull(legacy);
+        assertNull(legacy.name());
+        assertNotNull(longName);
+        assertEquals(AuthTokens.MAX_NAME_LENGTH, longName.name().length());
+    }
+}
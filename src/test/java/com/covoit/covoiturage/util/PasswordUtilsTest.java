@@ -0,0 +1,40 @@
+package com.covoit.covoiturage.util;
+
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur le hashage des mots de passe (PasswordUtils), coût par défaut (10).
+ */
+class PasswordUtilsTest {
+
+    /**
+     * Cas 1: mot de passe hashé sur le pool puis vérifié
+     *  alors le bon mot de passe est accepté, un autre refusé.
+     */
+    @Test
+    void givenHashedPassword_whenChecked_thenOnlySamePasswordMatches() throws Exception {
+        String hash = PasswordUtils.hashPassword("s3cret!");
+
+        assertTrue(PasswordUtils.checkPassword("s3cret!", hash));
+        assertFalse(PasswordUtils.checkPassword("autre", hash));
+        assertFalse(PasswordUtils.checkPassword("s3cret!", null));
+        assertFalse(PasswordUtils.checkPassword("s3cret!", "pas-un-hash"));
+    }
+
+    /**
+     * Cas 2: hash calculé avec un autre coût que le coût actuel
+     *  alors il doit être recalculé; un hash au coût actuel non.
+     */
+    @Test
+    void givenHashWithOtherCost_whenNeedsRehash_thenTrue() throws Exception {
+        String oldHash = BCrypt.hashpw("s3cret!", BCrypt.gensalt(4));
+
+        assertEquals(4, PasswordUtils.costOf(oldHash));
+        assertTrue(PasswordUtils.needsRehash(oldHash));
+        assertFalse(PasswordUtils.needsRehash(PasswordUtils.hashPassword("s3cret!")));
+        assertEquals(-1, PasswordUtils.costOf("abc"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.covoit.covoiturage.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie que l'image 1 bit correspond pixel par pixel à la matrice du QR Code.
+ */
+class QrCodeRendererTest {
+
+    @Test
+    void givenBitMatrix_whenToImage_thenSamePixelsAsMatrix() throws Exception {
+        // 250 n'est pas un multiple de 8: on vérifie aussi la fin de chaque ligne
+        BitMatrix matrix = new QRCodeWriter().encode("TICKET-123", BarcodeFormat.QR_CODE, 250, 250);
+
+        BufferedImage image = QrCodeRenderer.toImage(matrix);
+
+        for (int y = 0; y < 250; y++) {
+            for (int x = 0; x < 250; x++) {
+                int expected = matrix.get(x, y) ? 0xFF000000 : 0xFFFFFFFF;
+                assertEquals(expected, image.getRGB(x, y), "pixel (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @Test
+    void givenTicketCode_whenRenderPng_thenReadablePng() throws Exception {
+        byte[] png = QrCodeRenderer.renderPng("TICKET-123", 250);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(decoded);
+        assertEquals(250, decoded.getWidth());
+        assertEquals(250, decoded.getHeight());
+    }
+}
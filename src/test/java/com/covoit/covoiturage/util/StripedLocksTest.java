@@ -0,0 +1,96 @@
+package com.covoit.covoiturage.util;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests sur les verrous par trajet (StripedLocks).
+ */
+class StripedLocksTest {
+
+    /**
+     * Cas 1: deux ids égaux (même trajet, objets différents)
+     *  alors le même verrou; le nombre de verrous est arrondi à une puissance de 2.
+     */
+    @Test
+    void givenEqualKeys_whenLockFor_thenSameLock() {
+        StripedLocks locks = new StripedLocks(50);
+        ObjectId rideId = new ObjectId();
+
+        assertSame(locks.lockFor(rideId), locks.lockFor(new ObjectId(rideId.toHexString())));
+        assertEquals(64, locks.getStripes());
+    }
+
+    /**
+     * Cas 2: un trajet verrouillé, une seconde demande sur le même trajet
+     *  alors elle attend la libération, et l'attente est comptée.
+     */
+    @Test
+    void givenLockedRide_whenSecondAcquire_thenWaitsAndIsCounted() throws Exception {
+        StripedLocks locks = new StripedLocks(16);
+        ObjectId rideId = new ObjectId();
+
+        Lock first = locks.acquire(rideId);
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> locks.acquire(rideId).unlock());
+        try {
+            Thread.sleep(50);
+            assertFalse(second.isDone());
+        } finally {
+            first.unlock();
+        }
+        second.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, locks.getAcquisitions());
+        assertEquals(1, locks.getContended());
+        assertTrue(locks.getMaxWaitMillis() > 0);
+    }
+
+    /**
+     * Cas 3: un trajet verrouillé, une demande sur un trajet d'un autre verrou
+     *  alors elle passe sans attendre.
+     */
+    @Test
+    void givenLockedRide_whenOtherRideAcquired_thenNoWait() throws Exception {
+        StripedLocks locks = new StripedLocks(16);
+        ObjectId rideId = new ObjectId();
+        ObjectId otherId = new ObjectId();
+        while (locks.lockFor(otherId) == locks.lockFor(rideId)) {
+            otherId = new ObjectId();
+        }
+        ObjectId other = otherId;
+
+        Lock first = locks.acquire(rideId);
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            Thread.ofVirtual().start(() -> {
+                locks.acquire(other).unlock();
+                done.countDown();
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            first.unlock();
+        }
+        assertEquals(0, locks.getContended());
+    }
+
+    /**
+     * Cas 4: nombre de verrous déjà puissance de 2, égal à 1, ou nul
+     *  alors gardé tel quel (1 au minimum).
+     */
+    @Test
+    void givenPowerOfTwoOrOneStripe_whenCreated_thenSizeKept() {
+        assertEquals(1, new StripedLocks(1).getStripes());
+        assertEquals(1, new StripedLocks(0).getStripes());
+        assertEquals(2, new StripedLocks(2).getStripes());
+        assertEquals(16, new StripedLocks(16).getStripes());
+        assertEquals(1024, new StripedLocks(1024).getStripes());
+        assertEquals(32, new StripedLocks(17).getStripes());
+    }
+}
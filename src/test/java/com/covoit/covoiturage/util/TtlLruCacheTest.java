@@ -0,0 +1,74 @@
+package com.covoit.covoiturage.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du cache borné (taille + durée de vie) avec une horloge simulée.
+ */
+class TtlLruCacheTest {
+
+    /**
+     * Cas 1:
+     * - cache de 2 entrées, on lit "a" puis on ajoute "c"
+     *
+     * -> "b" (la moins récemment utilisée) est retirée, "a" reste.
+     */
+    @Test
+    void givenFullCache_whenPut_thenLeastRecentlyUsedIsEvicted() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(2, Duration.ofMinutes(5));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+    }
+
+    /**
+     * Cas 2:
+     * - ttl = 10 secondes
+     *
+     * -> l'entrée est lue avant expiration, puis ignorée et retirée après.
+     */
+    @Test
+    void givenExpiredEntry_whenGet_thenNullAndRemoved() {
+        AtomicLong now = new AtomicLong(0);
+        TtlLruCache<String, String> cache = new TtlLruCache<>(10, Duration.ofSeconds(10), now::get);
+        cache.put("ticket", "png");
+
+        now.set(Duration.ofSeconds(9).toNanos());
+        assertEquals("png", cache.get("ticket"));
+
+        now.set(Duration.ofSeconds(11).toNanos());
+        assertNull(cache.get("ticket"));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Cas 3:
+     * - removeIf sur les clés commençant par "2025-06-13"
+     *
+     * -> seules ces entrées sont retirées.
+     */
+    @Test
+    void givenMatchingKeys_whenRemoveIf_thenOnlyMatchingEntriesRemoved() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, Duration.ofMinutes(5));
+        cache.put("2025-06-13|nice|milan", 1);
+        cache.put("2025-06-13|lyon|paris", 2);
+        cache.put("2025-06-14|nice|milan", 3);
+
+        int removed = cache.removeIf((key, value) -> key.startsWith("2025-06-13"));
+
+        assertEquals(2, removed);
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.get("2025-06-14|nice|milan"));
+    }
+}